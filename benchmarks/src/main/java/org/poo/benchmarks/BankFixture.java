@@ -0,0 +1,141 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.CommandProcessor;
+import org.poo.main.commands.AddAccount;
+import org.poo.main.commands.AddFunds;
+import org.poo.main.commands.CreateCard;
+import org.poo.main.structures.Account;
+import org.poo.main.structures.Card;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bank populated through the regular commands, for benchmarks to run against. User
+ * {@code i} owns one classic account in {@code currencies[i % currencies.length]}, funded
+ * with {@link #FUNDS}, holding the requested number of regular cards.
+ */
+final class BankFixture {
+    /**
+     * The balance every account starts with. Benchmarks move a few units per operation
+     * and rebuild their fixture every iteration, so accounts never run out.
+     */
+    static final double FUNDS = 1e9;
+
+    private final CommandProcessor processor;
+    private final List<String> emails = new ArrayList<>();
+    private final List<String> ibans = new ArrayList<>();
+    private final List<String> cardNumbers = new ArrayList<>();
+    private int timestamp;
+
+    /**
+     * Creates and populates a bank.
+     *
+     * @param users           the number of users
+     * @param cardsPerAccount the number of cards on each account
+     * @param currencies      the currencies accounts are opened in, in turn
+     * @param rates           the exchange rates
+     */
+    BankFixture(final int users,
+                final int cardsPerAccount,
+                final String[] currencies,
+                final List<ExchangeInput> rates) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        processor = new CommandProcessor(objectMapper, new DiscardingOutputSink(objectMapper));
+
+        List<UserInput> userInputs = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            UserInput user = new UserInput();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setEmail("user" + i + "@bench.org");
+            userInputs.add(user);
+            emails.add(user.getEmail());
+        }
+        processor.initializeUsersAndExchangeRates(userInputs, rates);
+
+        for (int i = 0; i < users; i++) {
+            String email = emails.get(i);
+            processor.processCommand(new AddAccount(email, currencies[i % currencies.length],
+                    "classic", 0, nextTimestamp()));
+            Account account = processor.findUser(email).getAccounts().get(0);
+            ibans.add(account.getAccountNumber());
+            processor.processCommand(new AddFunds(account.getAccountNumber(), FUNDS,
+                    nextTimestamp()));
+            for (int c = 0; c < cardsPerAccount; c++) {
+                processor.processCommand(new CreateCard(email, account.getAccountNumber(),
+                        nextTimestamp()));
+            }
+            for (Card card : account.getCards()) {
+                cardNumbers.add(card.getCardNumber());
+            }
+        }
+    }
+
+    /**
+     * Builds a rate between two currencies, as read from the input.
+     *
+     * @param from the source currency
+     * @param to   the target currency
+     * @param rate the rate
+     * @return the exchange input
+     */
+    static ExchangeInput rate(final String from,
+                              final String to,
+                              final double rate) {
+        ExchangeInput input = new ExchangeInput();
+        input.setFrom(from);
+        input.setTo(to);
+        input.setRate(rate);
+        return input;
+    }
+
+    /**
+     * Gets the processor holding the bank.
+     *
+     * @return the processor
+     */
+    CommandProcessor getProcessor() {
+        return processor;
+    }
+
+    /**
+     * Gets the email of a user.
+     *
+     * @param user the index of the user
+     * @return the email
+     */
+    String getEmail(final int user) {
+        return emails.get(user);
+    }
+
+    /**
+     * Gets the IBANs of the accounts, one per user, in user order.
+     *
+     * @return the IBANs
+     */
+    List<String> getIbans() {
+        return ibans;
+    }
+
+    /**
+     * Gets the numbers of every card, grouped by user.
+     *
+     * @return the card numbers
+     */
+    List<String> getCardNumbers() {
+        return cardNumbers;
+    }
+
+    /**
+     * Draws the timestamp of the next command.
+     *
+     * @return a timestamp greater than every one drawn before
+     */
+    int nextTimestamp() {
+        return ++timestamp;
+    }
+}
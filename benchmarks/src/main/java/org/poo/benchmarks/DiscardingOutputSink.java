@@ -0,0 +1,58 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.main.output.JsonWritable;
+import org.poo.main.output.OutputSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Serialises every result, like the file sink does, but throws the bytes away. Reports
+ * are written lazily, so a sink that merely counted results would not measure them.
+ */
+final class DiscardingOutputSink implements OutputSink {
+    private final ObjectMapper objectMapper;
+    private final JsonGenerator generator;
+
+    /**
+     * Constructs a DiscardingOutputSink.
+     *
+     * @param objectMapper the mapper used to serialise results
+     */
+    DiscardingOutputSink(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        try {
+            this.generator = objectMapper.getFactory()
+                    .createGenerator(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final JsonNode node) {
+        try {
+            objectMapper.writeTree(generator, node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final JsonWritable writable) {
+        try {
+            writable.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
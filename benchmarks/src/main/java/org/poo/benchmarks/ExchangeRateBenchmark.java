@@ -0,0 +1,79 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.ExchangeInput;
+import org.poo.main.CommandProcessor;
+import org.poo.main.structures.Currency;
+import org.poo.main.structures.CurrencyRegistry;
+import org.poo.main.structures.ExchangeRateTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exchange rates over a chain of currencies, C0 to Cn, where each currency is only
+ * declared against the next one. Converting between the two ends has to cross the
+ * whole chain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExchangeRateBenchmark {
+    private static final double RATE = 1.01;
+
+    @Param({"2", "8", "32"})
+    private int depth;
+
+    private CommandProcessor processor;
+    private Currency first;
+    private Currency last;
+
+    /**
+     * Declares the chain of rates.
+     */
+    @Setup
+    public void setUp() {
+        List<ExchangeInput> rates = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            rates.add(BankFixture.rate("C" + i, "C" + (i + 1), RATE));
+        }
+        BankFixture bank = new BankFixture(0, 0, new String[]{"C0"}, rates);
+        processor = bank.getProcessor();
+        first = processor.getContext().getCurrencies().intern("C0");
+        last = processor.getContext().getCurrencies().intern("C" + depth);
+    }
+
+    /**
+     * Resolves the rate between the two ends of the chain.
+     *
+     * @return the rate
+     */
+    @Benchmark
+    public double getExchangeRateFromTo() {
+        return processor.getExchangeRateFromTo(first, last);
+    }
+
+    /**
+     * Builds the conversion table of the chain from its declared rates.
+     *
+     * @return the table
+     */
+    @Benchmark
+    public ExchangeRateTable buildTable() {
+        return new ExchangeRateTable(processor.getExchangeRates(), new CurrencyRegistry());
+    }
+}
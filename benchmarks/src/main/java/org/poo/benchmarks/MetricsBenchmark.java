@@ -0,0 +1,73 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.commands.CommandType;
+import org.poo.main.metrics.CommandEvent;
+import org.poo.main.metrics.CommandMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost the processor's instrumentation adds to every command: reading the clock
+ * twice and recording the outcome and latency, alone and with every thread recording
+ * into the same metrics, and the flight recorder check made when no recording runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+    private CommandMetrics metrics;
+
+    /**
+     * Creates empty metrics.
+     */
+    @Setup
+    public void setUp() {
+        metrics = new CommandMetrics();
+    }
+
+    /**
+     * Times and records one command, as the processor does around each dispatch.
+     */
+    @Benchmark
+    public void record() {
+        long start = System.nanoTime();
+        metrics.record(CommandType.PAY_ONLINE, CommandOutcome.OK, System.nanoTime() - start);
+    }
+
+    /**
+     * Times and records one command and asks for its flight recorder event, as the
+     * processor does when no recording is running.
+     *
+     * @return the event, so the check is not optimised away
+     */
+    @Benchmark
+    public CommandEvent recordWithEvent() {
+        CommandEvent event = CommandEvent.beginIfEnabled();
+        record();
+        return event;
+    }
+
+    /**
+     * Times and records one command from every available thread at once.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordContended() {
+        record();
+    }
+}
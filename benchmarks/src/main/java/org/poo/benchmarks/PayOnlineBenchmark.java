@@ -0,0 +1,73 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.CommandProcessor;
+import org.poo.main.commands.PayOnline;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card payments, cycling over every card of the bank. Each payment looks the card up,
+ * debits its account and records a transaction, so the bank is rebuilt every iteration
+ * to keep the histories from growing without bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PayOnlineBenchmark {
+    @Param({"16", "4096"})
+    private int users;
+
+    @Param({"1", "16"})
+    private int cardsPerAccount;
+
+    @Param({"false", "true"})
+    private boolean convert;
+
+    private CommandProcessor processor;
+    private PayOnline[] payments;
+    private int next;
+
+    /**
+     * Builds the bank and one payment per card. With conversion, payments are made in
+     * a currency other than the account's.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BankFixture bank = new BankFixture(users, cardsPerAccount, new String[]{"RON"},
+                List.of(BankFixture.rate("EUR", "RON", 4.97)));
+        processor = bank.getProcessor();
+
+        List<String> cardNumbers = bank.getCardNumbers();
+        payments = new PayOnline[cardNumbers.size()];
+        for (int i = 0; i < payments.length; i++) {
+            payments[i] = new PayOnline(bank.getEmail(i / cardsPerAccount), cardNumbers.get(i),
+                    1.0, convert ? "EUR" : "RON", "Shop" + (i % 16), bank.nextTimestamp());
+        }
+        next = 0;
+    }
+
+    /**
+     * Pays with the next card.
+     */
+    @Benchmark
+    public void payOnline() {
+        processor.processCommand(payments[next]);
+        next = next + 1 == payments.length ? 0 : next + 1;
+    }
+}
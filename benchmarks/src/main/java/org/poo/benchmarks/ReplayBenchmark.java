@@ -0,0 +1,85 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.checker.CheckerConstants;
+import org.poo.main.CommandProcessor;
+import org.poo.main.ParallelReplayer;
+import org.poo.main.StreamingInputReader;
+import org.poo.main.output.OutputSink;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end runs of the large checker inputs: parsing, processing and serialising the
+ * results, sequentially or with the parallel replayer. Inputs are read from the
+ * directory named by the {@value #INPUT_DIR_PROPERTY} property, by default the
+ * checker's own, relative to the directory the benchmarks are started from.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+    /**
+     * System property naming the directory holding the inputs.
+     */
+    public static final String INPUT_DIR_PROPERTY = "poo.inputDir";
+
+    @Param({"test18_large_input_1.json", "test19_large_input_2.json",
+            "test20_large_input_3.json"})
+    private String input;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private File file;
+
+    /**
+     * Locates the input.
+     *
+     * @throws FileNotFoundException if the input does not exist
+     */
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        file = new File(System.getProperty(INPUT_DIR_PROPERTY, CheckerConstants.TESTS_PATH),
+                input);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Processes the whole input on a fresh bank.
+     *
+     * @return the processor, holding the final state of the bank
+     * @throws IOException in case of exceptions to reading
+     */
+    @Benchmark
+    public CommandProcessor replay() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (OutputSink output = new DiscardingOutputSink(objectMapper)) {
+            CommandProcessor processor = new CommandProcessor(objectMapper, output);
+            ParallelReplayer replayer = parallel
+                    ? new ParallelReplayer(processor, output, objectMapper)
+                    : null;
+            new StreamingInputReader(objectMapper, processor, replayer).read(file);
+            return processor;
+        }
+    }
+}
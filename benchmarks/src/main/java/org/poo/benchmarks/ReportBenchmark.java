@@ -0,0 +1,87 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.CommandProcessor;
+import org.poo.main.commands.PayOnline;
+import org.poo.main.commands.Report;
+import org.poo.main.commands.SpendingsReport;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account and spendings reports over long histories of card payments, for a window
+ * covering the whole history and for one covering its last tenth. Reports only read
+ * the bank, so it is built once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+    private static final int COMMERCIANTS = 32;
+    private static final int TAIL_FRACTION = 10;
+
+    @Param({"1000", "100000"})
+    private int history;
+
+    @Param({"false", "true"})
+    private boolean tail;
+
+    private CommandProcessor processor;
+    private Report report;
+    private SpendingsReport spendingsReport;
+
+    /**
+     * Builds a single account with a history of card payments.
+     */
+    @Setup
+    public void setUp() {
+        BankFixture bank = new BankFixture(1, 1, new String[]{"RON"}, List.of());
+        processor = bank.getProcessor();
+
+        String email = bank.getEmail(0);
+        String cardNumber = bank.getCardNumbers().get(0);
+        int start = bank.nextTimestamp();
+        for (int i = 0; i < history; i++) {
+            processor.processCommand(new PayOnline(email, cardNumber, 1.0, "RON",
+                    "Shop" + (i % COMMERCIANTS), bank.nextTimestamp()));
+        }
+        int end = bank.nextTimestamp();
+        if (tail) {
+            start = end - history / TAIL_FRACTION;
+        }
+
+        String iban = bank.getIbans().get(0);
+        report = new Report(iban, start, end, bank.nextTimestamp());
+        spendingsReport = new SpendingsReport(iban, start, end, bank.nextTimestamp());
+    }
+
+    /**
+     * Writes the account report.
+     */
+    @Benchmark
+    public void report() {
+        processor.processCommand(report);
+    }
+
+    /**
+     * Writes the spendings report.
+     */
+    @Benchmark
+    public void spendingsReport() {
+        processor.processCommand(spendingsReport);
+    }
+}
@@ -0,0 +1,70 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.CommandProcessor;
+import org.poo.main.commands.SendMoney;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between pairs of users, with the receiving account in the sender's currency
+ * or in another one. Both sides record the transfer, so the bank is rebuilt every
+ * iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SendMoneyBenchmark {
+    private static final int PAIRS = 512;
+
+    @Param({"false", "true"})
+    private boolean convert;
+
+    private CommandProcessor processor;
+    private SendMoney[] transfers;
+    private int next;
+
+    /**
+     * Builds the bank and one transfer per pair of users. With conversion, even users
+     * hold RON and odd users hold EUR.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        String[] currencies = convert ? new String[]{"RON", "EUR"} : new String[]{"RON"};
+        BankFixture bank = new BankFixture(2 * PAIRS, 0, currencies,
+                List.of(BankFixture.rate("EUR", "RON", 4.97)));
+        processor = bank.getProcessor();
+
+        List<String> ibans = bank.getIbans();
+        transfers = new SendMoney[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            transfers[i] = new SendMoney(bank.getEmail(2 * i), ibans.get(2 * i),
+                    ibans.get(2 * i + 1), 1.0, "Transfer " + i, bank.nextTimestamp());
+        }
+        next = 0;
+    }
+
+    /**
+     * Runs the next transfer.
+     */
+    @Benchmark
+    public void sendMoney() {
+        processor.processCommand(transfers[next]);
+        next = next + 1 == transfers.length ? 0 : next + 1;
+    }
+}
@@ -0,0 +1,57 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.CommandProcessor;
+import org.poo.main.commands.SplitPayment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Split payments among a growing number of participants, half of them holding another
+ * currency than the payment's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SplitPaymentBenchmark {
+    @Param({"2", "8", "64"})
+    private int participants;
+
+    private CommandProcessor processor;
+    private SplitPayment payment;
+
+    /**
+     * Builds the bank and the payment shared by every participant.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BankFixture bank = new BankFixture(participants, 0, new String[]{"RON", "EUR"},
+                List.of(BankFixture.rate("EUR", "RON", 4.97)));
+        processor = bank.getProcessor();
+        payment = new SplitPayment(List.copyOf(bank.getIbans()), participants, "RON",
+                bank.nextTimestamp());
+    }
+
+    /**
+     * Runs the split payment.
+     */
+    @Benchmark
+    public void splitPayment() {
+        processor.processCommand(payment);
+    }
+}
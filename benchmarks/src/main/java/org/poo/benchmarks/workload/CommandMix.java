@@ -0,0 +1,72 @@
+package org.poo.benchmarks.workload;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * The relative frequencies of the commands of the steady phase of a workload.
+ */
+public enum CommandMix {
+    /** Close to the proportions of the checker's large inputs. */
+    BALANCED(30, 15, 3, 25, 3, 8, 1, 5, 10),
+    /** Mostly card payments. */
+    PAY_ONLINE(85, 5, 1, 5, 0, 2, 0, 2, 0),
+    /** Mostly transfers and split payments. */
+    TRANSFER(10, 70, 10, 8, 2, 0, 0, 0, 0),
+    /** Mostly reports over the accumulated histories. */
+    REPORT(20, 5, 0, 0, 35, 35, 5, 0, 0);
+
+    /**
+     * The operations a mix draws from, in the order of the weights.
+     */
+    enum Operation {
+        PAY_ONLINE, SEND_MONEY, SPLIT_PAYMENT, ADD_FUNDS, REPORT, SPENDINGS_REPORT,
+        PRINT_TRANSACTIONS, CHECK_CARD_STATUS, SET_ALIAS
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final int[] cumulativeWeights;
+
+    CommandMix(final int... weights) {
+        cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Draws the next operation.
+     *
+     * @param random the random source of the workload
+     * @return the operation
+     */
+    Operation draw(final SplittableRandom random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (ticket >= cumulativeWeights[i]) {
+            i++;
+        }
+        return OPERATIONS[i];
+    }
+
+    /**
+     * Gets a mix by name, ignoring case and dashes, for example "payOnline" or
+     * "pay-online".
+     *
+     * @param name the name
+     * @return the mix
+     * @throws IllegalArgumentException if no mix has that name
+     */
+    public static CommandMix fromName(final String name) {
+        String key = name.replace("-", "").replace("_", "").toLowerCase(Locale.ROOT);
+        for (CommandMix mix : values()) {
+            if (mix.name().replace("_", "").toLowerCase(Locale.ROOT).equals(key)) {
+                return mix;
+            }
+        }
+        throw new IllegalArgumentException("Unknown command mix: " + name);
+    }
+}
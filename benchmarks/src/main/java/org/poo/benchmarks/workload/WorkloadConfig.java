@@ -0,0 +1,230 @@
+package org.poo.benchmarks.workload;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The parameters of a generated workload, read from {@code key=value} arguments. Keys
+ * that are not given keep their defaults.
+ *
+ * <ul>
+ *     <li>{@code seed} - the seed of every random choice (1)</li>
+ *     <li>{@code users} - the number of users (1000)</li>
+ *     <li>{@code accountsPerUser} - the accounts opened by each user (2)</li>
+ *     <li>{@code cardsPerAccount} - the cards issued on each account (2)</li>
+ *     <li>{@code currencies} - the number of currencies in the rate graph (6)</li>
+ *     <li>{@code rateGraph} - {@code star}, every currency quoted against the first, or
+ *     {@code chain}, each currency quoted against the previous one (star)</li>
+ *     <li>{@code commands} - the commands of the steady phase, after the setup (1000000)</li>
+ *     <li>{@code mix} - balanced, payOnline, transfer or report (balanced)</li>
+ *     <li>{@code oneTimeCardRatio} - the share of one-time cards (0.25)</li>
+ *     <li>{@code invalidCardRatio} - the share of payments with an unknown card, or a card
+ *     of another user (0.02)</li>
+ *     <li>{@code reportWindow} - the longest time window of a report (1000)</li>
+ *     <li>{@code pretty} - whether to indent the output (false)</li>
+ *     <li>{@code out} - the output file (workload.json)</li>
+ * </ul>
+ */
+public final class WorkloadConfig {
+    private long seed = 1;
+    private int users = 1000;
+    private int accountsPerUser = 2;
+    private int cardsPerAccount = 2;
+    private int currencies = 6;
+    private boolean chainedRates;
+    private long commands = 1_000_000;
+    private CommandMix mix = CommandMix.BALANCED;
+    private double oneTimeCardRatio = 0.25;
+    private double invalidCardRatio = 0.02;
+    private int reportWindow = 1000;
+    private boolean pretty;
+    private Path out = Paths.get("workload.json");
+
+    /**
+     * Reads a configuration from command-line arguments.
+     *
+     * @param args the arguments, each of the form {@code key=value}
+     * @return the configuration
+     * @throws IllegalArgumentException if an argument is malformed or unknown
+     */
+    public static WorkloadConfig parse(final String[] args) {
+        WorkloadConfig config = new WorkloadConfig();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            config.set(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        config.validate();
+        return config;
+    }
+
+    /**
+     * Sets one parameter.
+     *
+     * @param key   the name of the parameter
+     * @param value its value
+     */
+    private void set(final String key,
+                     final String value) {
+        switch (key) {
+            case "seed" -> seed = Long.parseLong(value);
+            case "users" -> users = Integer.parseInt(value);
+            case "accountsPerUser" -> accountsPerUser = Integer.parseInt(value);
+            case "cardsPerAccount" -> cardsPerAccount = Integer.parseInt(value);
+            case "currencies" -> currencies = Integer.parseInt(value);
+            case "rateGraph" -> chainedRates = switch (value) {
+                case "star" -> false;
+                case "chain" -> true;
+                default -> throw new IllegalArgumentException("Unknown rate graph: " + value);
+            };
+            case "commands" -> commands = Long.parseLong(value);
+            case "mix" -> mix = CommandMix.fromName(value);
+            case "oneTimeCardRatio" -> oneTimeCardRatio = Double.parseDouble(value);
+            case "invalidCardRatio" -> invalidCardRatio = Double.parseDouble(value);
+            case "reportWindow" -> reportWindow = Integer.parseInt(value);
+            case "pretty" -> pretty = Boolean.parseBoolean(value);
+            case "out" -> out = Paths.get(value);
+            default -> throw new IllegalArgumentException("Unknown parameter: " + key);
+        }
+    }
+
+    /**
+     * Checks that the parameters describe a workload that can be generated.
+     */
+    private void validate() {
+        if (users < 2 || accountsPerUser < 1 || cardsPerAccount < 1) {
+            throw new IllegalArgumentException(
+                    "Need at least two users, with an account and a card each");
+        }
+        if (currencies < 1 || currencies > WorkloadGenerator.MAX_CURRENCIES) {
+            throw new IllegalArgumentException("Need between 1 and "
+                    + WorkloadGenerator.MAX_CURRENCIES + " currencies");
+        }
+        if (commands < 0 || reportWindow < 0) {
+            throw new IllegalArgumentException("Counts cannot be negative");
+        }
+        if (oneTimeCardRatio < 0 || oneTimeCardRatio > 1
+                || invalidCardRatio < 0 || invalidCardRatio > 1) {
+            throw new IllegalArgumentException("Ratios must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Gets the seed of every random choice.
+     *
+     * @return the seed of every random choice
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of users.
+     *
+     * @return the number of users
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * Gets the accounts opened by each user.
+     *
+     * @return the accounts opened by each user
+     */
+    public int getAccountsPerUser() {
+        return accountsPerUser;
+    }
+
+    /**
+     * Gets the cards issued on each account.
+     *
+     * @return the cards issued on each account
+     */
+    public int getCardsPerAccount() {
+        return cardsPerAccount;
+    }
+
+    /**
+     * Gets the number of currencies.
+     *
+     * @return the number of currencies
+     */
+    public int getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * Tells whether currencies are quoted in a chain rather than against the first one.
+     *
+     * @return true if currencies are quoted in a chain rather than against the first one
+     */
+    public boolean isChainedRates() {
+        return chainedRates;
+    }
+
+    /**
+     * Gets the commands of the steady phase.
+     *
+     * @return the commands of the steady phase
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    /**
+     * Gets the command mix of the steady phase.
+     *
+     * @return the command mix of the steady phase
+     */
+    public CommandMix getMix() {
+        return mix;
+    }
+
+    /**
+     * Gets the share of one-time cards.
+     *
+     * @return the share of one-time cards
+     */
+    public double getOneTimeCardRatio() {
+        return oneTimeCardRatio;
+    }
+
+    /**
+     * Gets the share of payments with an unknown or foreign card.
+     *
+     * @return the share of payments with an unknown or foreign card
+     */
+    public double getInvalidCardRatio() {
+        return invalidCardRatio;
+    }
+
+    /**
+     * Gets the longest time window of a report.
+     *
+     * @return the longest time window of a report
+     */
+    public int getReportWindow() {
+        return reportWindow;
+    }
+
+    /**
+     * Tells whether to indent the output.
+     *
+     * @return whether to indent the output
+     */
+    public boolean isPretty() {
+        return pretty;
+    }
+
+    /**
+     * Gets the output file.
+     *
+     * @return the output file
+     */
+    public Path getOut() {
+        return out;
+    }
+}
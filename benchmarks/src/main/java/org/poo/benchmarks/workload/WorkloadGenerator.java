@@ -0,0 +1,588 @@
+package org.poo.benchmarks.workload;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.utils.IdGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Generates large inputs in the format of the checker's tests, for stressing the engine
+ * far beyond them. The same configuration always produces the same file.
+ *
+ * <p>A workload starts with a setup phase, in which every user opens their accounts,
+ * funds them and gets their cards, followed by a steady phase drawn from a
+ * {@link CommandMix}. The generator draws IBANs and card numbers from its own
+ * {@link IdGenerator}, in the order the engine does, so the identifiers it writes are
+ * the ones the engine will assign, including the new numbers of one-time cards.
+ *
+ * <p>For that to hold, payments with a one-time card must not fail. The generator keeps
+ * a lower bound of every balance, counting the money each command takes out but not
+ * the transfers coming in, and tops an account up with addFunds before any command
+ * that could bring it under a reserve. Only the payments meant to be invalid fail, with
+ * "Card not found", and those leave the cards untouched.
+ *
+ * <p>Usage: {@code WorkloadGenerator [key=value ...]}, with the keys of
+ * {@link WorkloadConfig}.
+ */
+public final class WorkloadGenerator {
+    private static final String[] CURRENCY_CODES = {
+        "RON", "EUR", "USD", "GBP", "CHF", "JPY", "CAD", "AUD", "MXN", "NZD", "SEK", "NOK"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Ana", "Mihai", "Ioana", "Andrei", "Elena", "Radu", "Maria", "Luke", "Victoria",
+        "David", "Liam", "Roberta", "Gabor", "John", "Arne", "Nicolas"
+    };
+    private static final String[] LAST_NAMES = {
+        "Popescu", "Ionescu", "Stan", "Jones", "Rice", "Gill", "Waters", "Schmidt",
+        "Mocanu", "Guthrie", "Kobelt", "Watson", "Hasler", "Robert"
+    };
+    private static final String[] DOMAINS = {
+        "gmail.com", "yahoo.com", "outlook.com", "icloud.com", "proton.me"
+    };
+    private static final String[] COMMERCIANTS = {
+        "Chipotle", "Starbucks", "Amazon", "Emag", "Lidl", "Kaufland", "Netflix", "Spotify",
+        "Uber", "Bolt", "Zara", "Ikea", "Steam", "Apple", "Decathlon", "Carrefour"
+    };
+    private static final String[] ALIASES = {
+        "Savings", "Holidays", "Rent", "Groceries", "Finance", "Travel", "Bills"
+    };
+    private static final String[] DESCRIPTIONS = {
+        "Rent", "Electricity and water bills", "Dinner", "Birthday gift", "Loan payback",
+        "Tickets", "Subscription"
+    };
+
+    private static final double MIN_RATE = 0.5;
+    private static final double MAX_RATE = 2.0;
+    private static final double RATE_PRECISION = 1000.0;
+    private static final double CENTS = 100.0;
+    private static final double SAVINGS_RATIO = 0.2;
+    private static final double INTEREST_RATE = 0.05;
+    private static final double MAX_AMOUNT = 2000;
+    private static final double INITIAL_FUNDS = 100_000;
+    private static final double TOP_UP = 100_000;
+    private static final double RESERVE = 100;
+    private static final int MAX_SPLIT = 8;
+    private static final int CARD_DIGITS = 16;
+    private static final int DIGIT_BOUND = 10;
+    private static final int PROGRESS_INTERVAL = 1_000_000;
+    private static final int FUNDS_MULTIPLIER = 10;
+    private static final int LETTERS = 'Z' - 'A' + 1;
+    private static final int CODE_LENGTH = 3;
+    private static final int FIRST_MADE_UP_CODE = ('X' - 'A') * LETTERS * LETTERS;
+
+    /**
+     * The largest number of currencies the generator can name.
+     */
+    static final int MAX_CURRENCIES =
+            CURRENCY_CODES.length + LETTERS * LETTERS * LETTERS - FIRST_MADE_UP_CODE;
+
+    private final WorkloadConfig config;
+    private final SplittableRandom random;
+    private final IdGenerator ids = new IdGenerator();
+
+    private final String[] currencies;
+    private final double[] valueInBase;
+    private final List<String> emails = new ArrayList<>();
+    private final List<ModelAccount> accounts = new ArrayList<>();
+    private final List<ModelCard> cards = new ArrayList<>();
+    private final Set<String> liveIbans = new HashSet<>();
+    private final Set<String> liveCards = new HashSet<>();
+
+    private JsonGenerator out;
+    private int timestamp;
+    private long written;
+
+    /**
+     * An account as the generator sees it.
+     */
+    private static final class ModelAccount {
+        private final String iban;
+        private final int owner;
+        private final int currency;
+        private double balance;
+
+        ModelAccount(final String iban,
+                     final int owner,
+                     final int currency) {
+            this.iban = iban;
+            this.owner = owner;
+            this.currency = currency;
+        }
+    }
+
+    /**
+     * A card as the generator sees it.
+     */
+    private static final class ModelCard {
+        private final ModelAccount account;
+        private final boolean oneTime;
+        private String number;
+
+        ModelCard(final ModelAccount account,
+                  final boolean oneTime,
+                  final String number) {
+            this.account = account;
+            this.oneTime = oneTime;
+            this.number = number;
+        }
+    }
+
+    /**
+     * Constructs a WorkloadGenerator.
+     *
+     * @param config the parameters of the workload
+     */
+    public WorkloadGenerator(final WorkloadConfig config) {
+        this.config = config;
+        this.random = new SplittableRandom(config.getSeed());
+        this.currencies = new String[config.getCurrencies()];
+        this.valueInBase = new double[config.getCurrencies()];
+        for (int i = 0; i < currencies.length; i++) {
+            currencies[i] = currencyCode(i);
+            valueInBase[i] = i == 0 ? 1
+                    : Math.round(random.nextDouble(MIN_RATE, MAX_RATE) * RATE_PRECISION)
+                    / RATE_PRECISION;
+        }
+    }
+
+    /**
+     * Generates a workload.
+     *
+     * @param args the parameters, as {@code key=value} pairs
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void main(final String[] args) throws IOException {
+        WorkloadConfig config = WorkloadConfig.parse(args);
+        long commands = new WorkloadGenerator(config).generate();
+        System.out.println("Wrote " + commands + " commands to " + config.getOut());
+    }
+
+    /**
+     * Writes the workload to the configured file.
+     *
+     * @return the number of commands written, setup and top-ups included
+     * @throws IOException in case of exceptions to writing
+     */
+    public long generate() throws IOException {
+        try (JsonGenerator generator = new JsonFactory()
+                .createGenerator(config.getOut().toFile(), JsonEncoding.UTF8)) {
+            out = generator;
+            if (config.isPretty()) {
+                out.useDefaultPrettyPrinter();
+            }
+            out.writeStartObject();
+            writeUsers();
+            writeExchangeRates();
+            out.writeArrayFieldStart("commands");
+            writeSetup();
+            long steady = written;
+            while (written - steady < config.getCommands()) {
+                writeOperation(config.getMix().draw(random));
+                if (written % PROGRESS_INTERVAL == 0) {
+                    out.flush();
+                }
+            }
+            out.writeEndArray();
+            out.writeEndObject();
+        }
+        return written;
+    }
+
+    /**
+     * Writes the users, with unique emails.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeUsers() throws IOException {
+        out.writeArrayFieldStart("users");
+        for (int i = 0; i < config.getUsers(); i++) {
+            String firstName = pick(FIRST_NAMES);
+            String lastName = pick(LAST_NAMES);
+            String email = firstName + "_" + lastName + "_" + i + "@" + pick(DOMAINS);
+            emails.add(email);
+
+            out.writeStartObject();
+            out.writeStringField("firstName", firstName);
+            out.writeStringField("lastName", lastName);
+            out.writeStringField("email", email);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Writes the rates connecting the currencies, either each against the first one or
+     * each against the previous one. Either way the rate between two currencies is the
+     * ratio of their values in the first one.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeExchangeRates() throws IOException {
+        out.writeArrayFieldStart("exchangeRates");
+        for (int i = 1; i < currencies.length; i++) {
+            int to = config.isChainedRates() ? i - 1 : 0;
+            out.writeStartObject();
+            out.writeStringField("from", currencies[i]);
+            out.writeStringField("to", currencies[to]);
+            out.writeNumberField("rate", valueInBase[i] / valueInBase[to]);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Opens, funds and equips every account.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeSetup() throws IOException {
+        for (int user = 0; user < emails.size(); user++) {
+            for (int a = 0; a < config.getAccountsPerUser(); a++) {
+                ModelAccount account = openAccount(user);
+                writeAddFunds(account, INITIAL_FUNDS);
+                for (int c = 0; c < config.getCardsPerAccount(); c++) {
+                    issueCard(account, random.nextDouble() < config.getOneTimeCardRatio());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes an addAccount command and draws the IBAN the engine will assign.
+     *
+     * @param user the owner
+     * @return the new account
+     * @throws IOException in case of exceptions to writing
+     */
+    private ModelAccount openAccount(final int user) throws IOException {
+        int currency = random.nextInt(currencies.length);
+        boolean savings = random.nextDouble() < SAVINGS_RATIO;
+
+        startCommand("addAccount");
+        out.writeStringField("email", emails.get(user));
+        out.writeStringField("currency", currencies[currency]);
+        out.writeStringField("accountType", savings ? "savings" : "classic");
+        if (savings) {
+            out.writeNumberField("interestRate", INTEREST_RATE);
+        }
+        endCommand();
+
+        String iban = ids.generateIBAN(liveIbans::contains);
+        liveIbans.add(iban);
+        ModelAccount account = new ModelAccount(iban, user, currency);
+        accounts.add(account);
+        return account;
+    }
+
+    /**
+     * Writes a createCard or createOneTimeCard command and draws the card number the
+     * engine will assign.
+     *
+     * @param account the account of the card
+     * @param oneTime whether the card is a one-time card
+     * @throws IOException in case of exceptions to writing
+     */
+    private void issueCard(final ModelAccount account,
+                           final boolean oneTime) throws IOException {
+        startCommand(oneTime ? "createOneTimeCard" : "createCard");
+        out.writeStringField("account", account.iban);
+        out.writeStringField("email", emails.get(account.owner));
+        endCommand();
+
+        ModelCard card = new ModelCard(account, oneTime,
+                ids.generateCardNumber(liveCards::contains));
+        liveCards.add(card.number);
+        cards.add(card);
+    }
+
+    /**
+     * Writes the commands of one operation of the steady phase.
+     *
+     * @param operation the operation
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeOperation(final CommandMix.Operation operation) throws IOException {
+        switch (operation) {
+            case PAY_ONLINE -> writePayOnline();
+            case SEND_MONEY -> writeSendMoney();
+            case SPLIT_PAYMENT -> writeSplitPayment();
+            case ADD_FUNDS -> writeAddFunds(pick(accounts), amount() * FUNDS_MULTIPLIER);
+            case REPORT -> writeReport("report");
+            case SPENDINGS_REPORT -> writeReport("spendingsReport");
+            case PRINT_TRANSACTIONS -> {
+                startCommand("printTransactions");
+                out.writeStringField("email", pick(emails));
+                endCommand();
+            }
+            case CHECK_CARD_STATUS -> {
+                startCommand("checkCardStatus");
+                out.writeStringField("cardNumber", pick(cards).number);
+                endCommand();
+            }
+            case SET_ALIAS -> {
+                ModelAccount account = pick(accounts);
+                startCommand("setAlias");
+                out.writeStringField("email", emails.get(account.owner));
+                out.writeStringField("account", account.iban);
+                out.writeStringField("alias", pick(ALIASES));
+                endCommand();
+            }
+            default -> throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    /**
+     * Writes a card payment. Invalid payments use a card number nobody holds, or the
+     * card of another user; valid ones with a one-time card renumber it.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writePayOnline() throws IOException {
+        ModelCard card = pick(cards);
+        ModelAccount account = card.account;
+        int currency = random.nextInt(currencies.length);
+        double amount = amount();
+
+        String email = emails.get(account.owner);
+        String cardNumber = card.number;
+        boolean valid = random.nextDouble() >= config.getInvalidCardRatio();
+        if (!valid) {
+            if (random.nextBoolean()) {
+                cardNumber = unknownCardNumber();
+            } else {
+                email = emails.get((account.owner + 1 + random.nextInt(emails.size() - 1))
+                        % emails.size());
+            }
+        } else {
+            withdraw(account, amount * rate(currency, account.currency));
+        }
+
+        startCommand("payOnline");
+        out.writeStringField("cardNumber", cardNumber);
+        out.writeNumberField("amount", amount);
+        out.writeStringField("currency", currencies[currency]);
+        out.writeStringField("description", "Online payment");
+        out.writeStringField("commerciant", pick(COMMERCIANTS));
+        out.writeStringField("email", email);
+        endCommand();
+
+        if (valid && card.oneTime) {
+            String renumbered = ids.generateCardNumber(liveCards::contains);
+            liveCards.remove(card.number);
+            liveCards.add(renumbered);
+            card.number = renumbered;
+        }
+    }
+
+    /**
+     * Writes a transfer between two different accounts.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeSendMoney() throws IOException {
+        ModelAccount sender = pick(accounts);
+        ModelAccount receiver = pick(accounts);
+        while (receiver == sender) {
+            receiver = pick(accounts);
+        }
+        double amount = amount();
+        withdraw(sender, amount);
+
+        startCommand("sendMoney");
+        out.writeStringField("email", emails.get(sender.owner));
+        out.writeStringField("account", sender.iban);
+        out.writeStringField("receiver", receiver.iban);
+        out.writeNumberField("amount", amount);
+        out.writeStringField("description", pick(DESCRIPTIONS));
+        endCommand();
+    }
+
+    /**
+     * Writes a split payment among distinct accounts.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeSplitPayment() throws IOException {
+        int participants = 2 + random.nextInt(Math.min(MAX_SPLIT, accounts.size()) - 1);
+        List<ModelAccount> involved = new ArrayList<>(participants);
+        while (involved.size() < participants) {
+            ModelAccount account = pick(accounts);
+            if (!involved.contains(account)) {
+                involved.add(account);
+            }
+        }
+        int currency = random.nextInt(currencies.length);
+        double amount = amount() * participants;
+        double share = amount / participants;
+        for (ModelAccount account : involved) {
+            withdraw(account, share * rate(currency, account.currency));
+        }
+
+        startCommand("splitPayment");
+        out.writeArrayFieldStart("accounts");
+        for (ModelAccount account : involved) {
+            out.writeString(account.iban);
+        }
+        out.writeEndArray();
+        out.writeNumberField("amount", amount);
+        out.writeStringField("currency", currencies[currency]);
+        endCommand();
+    }
+
+    /**
+     * Writes a report or spendings report over a window ending now.
+     *
+     * @param command the report command
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeReport(final String command) throws IOException {
+        int end = timestamp;
+        int start = Math.max(0, end - random.nextInt(config.getReportWindow() + 1));
+
+        startCommand(command);
+        out.writeNumberField("startTimestamp", start);
+        out.writeNumberField("endTimestamp", end);
+        out.writeStringField("account", pick(accounts).iban);
+        endCommand();
+    }
+
+    /**
+     * Writes an addFunds command and credits the account.
+     *
+     * @param account the account
+     * @param amount  the amount, in the account's currency
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeAddFunds(final ModelAccount account,
+                               final double amount) throws IOException {
+        startCommand("addFunds");
+        out.writeStringField("account", account.iban);
+        out.writeNumberField("amount", amount);
+        endCommand();
+        account.balance += amount;
+    }
+
+    /**
+     * Takes an amount out of an account, topping it up first if the amount could bring
+     * it under the reserve.
+     *
+     * @param account the account
+     * @param amount  the amount, in the account's currency
+     * @throws IOException in case of exceptions to writing
+     */
+    private void withdraw(final ModelAccount account,
+                          final double amount) throws IOException {
+        if (account.balance - amount < RESERVE) {
+            writeAddFunds(account, TOP_UP + amount);
+        }
+        account.balance -= amount;
+    }
+
+    /**
+     * Starts a command object with its name and the next timestamp.
+     *
+     * @param command the command name
+     * @throws IOException in case of exceptions to writing
+     */
+    private void startCommand(final String command) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("command", command);
+        out.writeNumberField("timestamp", ++timestamp);
+    }
+
+    /**
+     * Ends a command object.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    private void endCommand() throws IOException {
+        out.writeEndObject();
+        written++;
+    }
+
+    /**
+     * Gets the rate converting amounts between two currencies.
+     *
+     * @param from the source currency
+     * @param to   the target currency
+     * @return the rate
+     */
+    private double rate(final int from,
+                        final int to) {
+        return valueInBase[from] / valueInBase[to];
+    }
+
+    /**
+     * Draws a payment amount, with cents.
+     *
+     * @return the amount
+     */
+    private double amount() {
+        return Math.round(random.nextDouble(1, MAX_AMOUNT) * CENTS) / CENTS;
+    }
+
+    /**
+     * Draws a card number that no card holds.
+     *
+     * @return the card number
+     */
+    private String unknownCardNumber() {
+        char[] digits = new char[CARD_DIGITS];
+        String number;
+        do {
+            for (int i = 0; i < digits.length; i++) {
+                digits[i] = (char) ('0' + random.nextInt(DIGIT_BOUND));
+            }
+            number = new String(digits);
+        } while (liveCards.contains(number));
+        return number;
+    }
+
+    /**
+     * Gets the code of a currency: the usual codes first, then made-up three-letter ones
+     * from XAA to ZZZ.
+     *
+     * @param index the index of the currency
+     * @return the code
+     */
+    static String currencyCode(final int index) {
+        if (index < CURRENCY_CODES.length) {
+            return CURRENCY_CODES[index];
+        }
+        int n = FIRST_MADE_UP_CODE + index - CURRENCY_CODES.length;
+        char[] code = new char[CODE_LENGTH];
+        for (int i = code.length - 1; i >= 0; i--) {
+            code[i] = (char) ('A' + n % LETTERS);
+            n /= LETTERS;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Picks an element uniformly.
+     *
+     * @param values the values
+     * @param <T>    the type of the values
+     * @return one of the values
+     */
+    private <T> T pick(final List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * Picks a string uniformly.
+     *
+     * @param values the values
+     * @return one of the values
+     */
+    private String pick(final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
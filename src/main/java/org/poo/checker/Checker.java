@@ -1,24 +1,19 @@
 package org.poo.checker;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.main.Main;
 
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 public final class Checker {
     private static int gitScore;
@@ -62,8 +57,17 @@ public final class Checker {
      * This method is used to calculate total score of the implementation and checkstyle
      */
     public static void calculateScore() throws IOException {
+        calculateScore(checkAllTests());
+    }
+
+    /**
+     * This method is used to calculate total score of the implementation and checkstyle,
+     * from tests that were already checked
+     * @param results the checked tests, in the order they are reported
+     */
+    public static void calculateScore(final List<TestResult> results) {
         System.out.println();
-        calculateScoreAllTests();
+        calculateScoreAllTests(results);
         int checkstyleScore = calculateScoreCheckstyle();
         calculateScoreGit();
         calculateScoreReadme();
@@ -86,10 +90,10 @@ public final class Checker {
     }
 
     /**
-     * This method is used to calculate score of implementation
-     * 18 tests (80 points maximum)
+     * This method checks every test, one after another
+     * @return the checked tests, in the order of their test numbers
      */
-    private static void calculateScoreAllTests() throws IOException {
+    private static List<TestResult> checkAllTests() throws IOException {
         File directory = new File(CheckerConstants.TESTS_PATH);
         Path path = Paths.get(CheckerConstants.RESULT_PATH);
         if (!Files.exists(path)) {
@@ -99,8 +103,20 @@ public final class Checker {
                 sorted(Comparator.comparingInt(Main::fileConsumer))
                 .map(File::getName)
                 .toList();
+        List<TestResult> results = new ArrayList<>();
         for (String file : listFile) {
-            totalScore += calculateScore(file);
+            results.add(checkTest(file));
+        }
+        return results;
+    }
+
+    /**
+     * This method is used to calculate score of implementation
+     * 18 tests (80 points maximum)
+     */
+    private static void calculateScoreAllTests(final List<TestResult> results) {
+        for (TestResult result : results) {
+            totalScore += report(result);
         }
 
         System.out.println("-----------------------------------------------------");
@@ -112,20 +128,44 @@ public final class Checker {
      * @return the score of that test
      */
     public static int calculateScore(final String input) {
-        if (checkOutput(input)) {
+        return report(checkTest(input));
+    }
+
+    /**
+     * This method checks one single test without printing anything, so tests can be
+     * checked concurrently and reported later
+     * @param input the test you want to check
+     * @return the outcome of that test
+     */
+    public static TestResult checkTest(final String input) {
+        JsonDifference difference = checkOutput(input);
+        return new TestResult(input, difference == null ? getScoreForTest(input) : 0,
+                difference);
+    }
+
+    /**
+     * This method prints the outcome of one single test
+     * @param result the checked test
+     * @return the score of that test
+     */
+    private static int report(final TestResult result) {
+        String input = result.getInput();
+        JsonDifference difference = result.getDifference();
+        if (difference == null) {
             System.out.print(input + " ");
             for (int i = 1;  i <= CheckerConstants.LEN_LONGEST_TEST_NAME - input.length(); i++) {
                 System.out.print("-");
             }
             System.out.println("--------------------------------------------- PASSED (+"
-                    + getScoreForTest(input) + ")");
-            return getScoreForTest(input);
+                    + result.getScore() + ")");
+            return result.getScore();
         } else {
             System.out.print(input + " ");
             for (int i = 1; i <= CheckerConstants.LEN_LONGEST_TEST_NAME - input.length(); i++) {
                 System.out.print("-");
             }
             System.out.println("--------------------------------------------- FAILED (+0)");
+            System.out.println("    first difference at " + difference);
             return 0;
         }
     }
@@ -133,9 +173,10 @@ public final class Checker {
     /**
      * @param file the test you want to check
      * @return
-     *          if the two files are equal or not
+     *          the first difference between the output and the reference,
+     *          or null if they are equal
      */
-    private static boolean checkOutput(final String file) {
+    private static JsonDifference checkOutput(final String file) {
         ObjectMapper mapper = new ObjectMapper();
 
         SimpleModule simpleModule = new SimpleModule();
@@ -143,54 +184,13 @@ public final class Checker {
         mapper.registerModule(simpleModule);
 
         try {
-            JsonNode output = mapper.readTree(new File(CheckerConstants.OUT_PATH + file));
-            JsonNode ref = mapper.readTree(new File(CheckerConstants.REF_PATH + file));
-
-            output = roundDecimals(output, CheckerConstants.DECIMAL_POINTS, mapper);
-            ref = roundDecimals(ref, CheckerConstants.DECIMAL_POINTS, mapper);
-
-            return output.equals(ref);
-
+            return new StreamingJsonComparator(mapper, CheckerConstants.DECIMAL_POINTS)
+                    .compare(new File(CheckerConstants.OUT_PATH + file),
+                            new File(CheckerConstants.REF_PATH + file));
         } catch (IOException e) {
             e.printStackTrace();
+            return new JsonDifference("/", "a readable output", e.getMessage());
         }
-        return false;
-    }
-
-    private static JsonNode roundDecimals(
-            final JsonNode node,
-            final int precision,
-            final ObjectMapper mapper) {
-        if (node.isObject()) {
-            ObjectNode objectNode = (ObjectNode) node;
-            Iterator<String> fieldNames = objectNode.fieldNames();
-            while (fieldNames.hasNext()) {
-                String fieldName = fieldNames.next();
-                objectNode.set(
-                        fieldName,
-                        roundDecimals(objectNode.get(fieldName), precision, mapper)
-                );
-            }
-        } else if (node.isArray()) {
-            ArrayNode arrayNode = (ArrayNode) node;
-            for (int i = 0; i < arrayNode.size(); i++) {
-                arrayNode.set(i, roundDecimals(arrayNode.get(i), precision, mapper));
-            }
-        } else if (node.isNumber() && node.isFloatingPointNumber()) {
-            BigDecimal roundedValue = BigDecimal.valueOf(node.asDouble())
-                    .setScale(precision, RoundingMode.HALF_UP);
-            return mapper.getNodeFactory().numberNode(roundedValue);
-        } else if (node.isTextual() && Pattern.matches(
-                CheckerConstants.DECIMALS_REGEX, node.asText())) {
-            String[] words = node.asText().split(" ");
-
-            BigDecimal roundedValue = BigDecimal.valueOf(Double.parseDouble(words[0]))
-                    .setScale(precision, RoundingMode.HALF_UP);
-            String actualValue = roundedValue + " " + words[1];
-
-            return mapper.getNodeFactory().textNode(actualValue);
-        }
-        return node;
     }
 
     /**
@@ -0,0 +1,49 @@
+package org.poo.checker;
+
+/**
+ * The first place where an output differs from its reference.
+ */
+public final class JsonDifference {
+    private final String path;
+    private final String expected;
+    private final String actual;
+
+    /**
+     * @param path     JSON pointer to the differing value, "/" for the whole document
+     * @param expected what the reference holds there
+     * @param actual   what the output holds there
+     */
+    public JsonDifference(final String path,
+                          final String expected,
+                          final String actual) {
+        this.path = path;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    /**
+     * @return JSON pointer to the differing value
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return what the reference holds at the path
+     */
+    public String getExpected() {
+        return expected;
+    }
+
+    /**
+     * @return what the output holds at the path
+     */
+    public String getActual() {
+        return actual;
+    }
+
+    @Override
+    public String toString() {
+        return path + ": expected " + expected + ", got " + actual;
+    }
+}
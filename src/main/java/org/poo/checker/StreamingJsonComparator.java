@@ -0,0 +1,214 @@
+package org.poo.checker;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compares an output with its reference by walking both files token by token, without
+ * reading either into a tree. Floating-point numbers, and texts made of an amount and a
+ * currency code, are rounded to a fixed number of decimals before being compared.
+ *
+ * <p>Objects are equal whatever the order of their fields. The fields are compared in
+ * lockstep while both sides list them in the same order; from the first field where the
+ * order differs, the rest of that object is read into a tree on each side and compared
+ * as a map. Memory therefore only grows with the largest reordered object, never with
+ * the size of the files.
+ */
+public final class StreamingJsonComparator {
+    private static final Pattern DECIMALS = Pattern.compile(CheckerConstants.DECIMALS_REGEX);
+    private static final String ROOT = "/";
+    private static final String NOTHING = "nothing";
+
+    private final ObjectMapper mapper;
+    private final int precision;
+
+    /**
+     * @param mapper    mapper used to open the files and to read reordered objects
+     * @param precision number of decimals numbers and amounts are rounded to
+     */
+    public StreamingJsonComparator(final ObjectMapper mapper,
+                                   final int precision) {
+        this.mapper = mapper;
+        this.precision = precision;
+    }
+
+    /**
+     * @param actual   the output file
+     * @param expected the reference file
+     * @return the first difference, or null if the files are equal
+     * @throws IOException if a file cannot be read or is not valid JSON
+     */
+    public JsonDifference compare(final File actual,
+                                  final File expected) throws IOException {
+        try (JsonParser actualParser = mapper.createParser(actual);
+             JsonParser expectedParser = mapper.createParser(expected)) {
+            return compare(actualParser, expectedParser);
+        }
+    }
+
+    /**
+     * @param actual   parser over the output, before its first token
+     * @param expected parser over the reference, before its first token
+     * @return the first difference, or null if both documents are equal
+     * @throws IOException if a document cannot be read or is not valid JSON
+     */
+    public JsonDifference compare(final JsonParser actual,
+                                  final JsonParser expected) throws IOException {
+        while (true) {
+            JsonToken actualToken = actual.nextToken();
+            JsonToken expectedToken = expected.nextToken();
+            if (actualToken == null && expectedToken == null) {
+                return null;
+            }
+
+            if (actualToken == JsonToken.FIELD_NAME && expectedToken == JsonToken.FIELD_NAME) {
+                if (!actual.currentName().equals(expected.currentName())) {
+                    JsonDifference difference = compareRemainingFields(actual, expected);
+                    if (difference != null) {
+                        return difference;
+                    }
+                }
+                continue;
+            }
+
+            if (actualToken != expectedToken || !sameValue(actual, expected, actualToken)) {
+                return new JsonDifference(pathOf(expected, expectedToken),
+                        describe(expected, expectedToken), describe(actual, actualToken));
+            }
+        }
+    }
+
+    private boolean sameValue(final JsonParser actual,
+                              final JsonParser expected,
+                              final JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NUMBER_INT -> actual.getNumberType() == expected.getNumberType()
+                    && actual.getNumberValue().equals(expected.getNumberValue());
+            case VALUE_NUMBER_FLOAT -> round(actual.getDoubleValue())
+                    .equals(round(expected.getDoubleValue()));
+            case VALUE_STRING -> roundText(actual.getText())
+                    .equals(roundText(expected.getText()));
+            default -> true;
+        };
+    }
+
+    /**
+     * Compares the rest of an object whose fields are listed in a different order on
+     * each side. Both parsers are on a field name and are left on the end of the object.
+     */
+    private JsonDifference compareRemainingFields(final JsonParser actual,
+                                                  final JsonParser expected)
+            throws IOException {
+        JsonPointer objectPath = expected.getParsingContext().getParent().pathAsPointer();
+        ObjectNode actualFields = readRemainingFields(actual);
+        ObjectNode expectedFields = readRemainingFields(expected);
+
+        for (Map.Entry<String, JsonNode> field : expectedFields.properties()) {
+            JsonNode other = actualFields.get(field.getKey());
+            if (!field.getValue().equals(other)) {
+                return new JsonDifference(format(objectPath.appendProperty(field.getKey())),
+                        field.getValue().toString(),
+                        other == null ? NOTHING : other.toString());
+            }
+        }
+        for (Map.Entry<String, JsonNode> field : actualFields.properties()) {
+            if (!expectedFields.has(field.getKey())) {
+                return new JsonDifference(format(objectPath.appendProperty(field.getKey())),
+                        NOTHING, field.getValue().toString());
+            }
+        }
+        return null;
+    }
+
+    private ObjectNode readRemainingFields(final JsonParser parser) throws IOException {
+        ObjectNode fields = mapper.createObjectNode();
+        for (JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME;
+                token = parser.nextToken()) {
+            String name = parser.currentName();
+            parser.nextToken();
+            fields.set(name, roundTree(mapper.readTree(parser)));
+        }
+        return fields;
+    }
+
+    private JsonNode roundTree(final JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            Iterator<String> fieldNames = objectNode.fieldNames();
+            while (fieldNames.hasNext()) {
+                String fieldName = fieldNames.next();
+                objectNode.set(fieldName, roundTree(objectNode.get(fieldName)));
+            }
+        } else if (node.isArray()) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = 0; i < arrayNode.size(); i++) {
+                arrayNode.set(i, roundTree(arrayNode.get(i)));
+            }
+        } else if (node.isNumber() && node.isFloatingPointNumber()) {
+            return mapper.getNodeFactory().numberNode(round(node.asDouble()));
+        } else if (node.isTextual()) {
+            return mapper.getNodeFactory().textNode(roundText(node.asText()));
+        }
+        return node;
+    }
+
+    private BigDecimal round(final double value) {
+        return BigDecimal.valueOf(value).setScale(precision, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Rounds the amount of a text such as "12.3456 EUR", leaving other texts unchanged.
+     */
+    private String roundText(final String text) {
+        if (text.isEmpty() || !Character.isDigit(text.charAt(0))
+                || !DECIMALS.matcher(text).matches()) {
+            return text;
+        }
+        int space = text.indexOf(' ');
+        return round(Double.parseDouble(text.substring(0, space))) + text.substring(space);
+    }
+
+    private static String pathOf(final JsonParser parser,
+                                 final JsonToken token) {
+        JsonStreamContext context = parser.getParsingContext();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            context = context.getParent();
+        }
+        return format(context.pathAsPointer());
+    }
+
+    private static String format(final JsonPointer pointer) {
+        String path = pointer.toString();
+        return path.isEmpty() ? ROOT : path;
+    }
+
+    private static String describe(final JsonParser parser,
+                                   final JsonToken token) throws IOException {
+        if (token == null) {
+            return "end of input";
+        }
+        return switch (token) {
+            case START_OBJECT -> "an object";
+            case START_ARRAY -> "an array";
+            case END_OBJECT -> "end of object";
+            case END_ARRAY -> "end of array";
+            case FIELD_NAME -> "field \"" + parser.currentName() + "\"";
+            case VALUE_STRING -> "\"" + parser.getText() + "\"";
+            default -> parser.getText();
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package org.poo.checker;
+
+/**
+ * The outcome of checking one test, kept until it is its turn to be reported.
+ */
+public final class TestResult {
+    private final String input;
+    private final int score;
+    private final JsonDifference difference;
+
+    /**
+     * @param input      the name of the test input
+     * @param score      the points the test earned
+     * @param difference the first difference from the reference, or null if it passed
+     */
+    public TestResult(final String input,
+                      final int score,
+                      final JsonDifference difference) {
+        this.input = input;
+        this.score = score;
+        this.difference = difference;
+    }
+
+    /**
+     * @return the name of the test input
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * @return the points the test earned
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the first difference from the reference, or null if the test passed
+     */
+    public JsonDifference getDifference() {
+        return difference;
+    }
+
+    /**
+     * @return whether the output matched the reference
+     */
+    public boolean isPassed() {
+        return difference == null;
+    }
+}
@@ -5,9 +5,18 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.poo.main.structures.*;
+import org.poo.main.structures.Currency;
 import org.poo.fileio.*;
-import org.poo.utils.Utils;
+import org.poo.main.commands.*;
+import org.poo.main.metrics.CommandEvent;
+import org.poo.main.metrics.CommandMetrics;
+import org.poo.main.metrics.SplitPaymentEvent;
+import org.poo.main.output.OutputSink;
+import org.poo.main.output.RecordingOutputSink;
+import org.poo.main.persistence.CommandJournal;
+import org.poo.main.output.TransactionSerializer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The CommandProcessor class is responsible for processing various commands related to users,
@@ -15,39 +24,83 @@ import java.util.*;
  */
 public final class CommandProcessor {
 
-    private static CommandProcessor instance;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final ArrayNode output;
+    private final ObjectMapper objectMapper;
+    private final OutputSink output;
+    private final ThreadLocal<OutputSink> redirectedOutput = new ThreadLocal<>();
+    private CommandJournal journal;
+    private RecordingOutputSink journaledResults;
     private final Map<String, User> usersMap = new LinkedHashMap<>();
+    private final BankContext context = new BankContext();
+    private final BankIndex index = context.getIndex();
+    private final CurrencyRegistry currencies = context.getCurrencies();
     private final List<ExchangeRate> exchangeRates = new ArrayList<>();
+    private ExchangeRateTable exchangeRateTable =
+            new ExchangeRateTable(exchangeRates, currencies);
+    private final CommandHandler[] handlers = new CommandHandler[CommandType.values().length];
+    private final CommandMetrics metrics = new CommandMetrics();
+    private final AtomicInteger processedCommands = new AtomicInteger();
+    private boolean initialized;
 
     /**
-     * Private constructor to enforce singleton pattern.
+     * Creates an engine with its own users, rates and identifier generators. Nothing is
+     * shared between processors, so several inputs can be processed concurrently.
      *
-     * @param output The output ArrayNode for storing results.
+     * @param objectMapper The mapper shared by every handler of the run.
+     * @param output The sink receiving the results.
      */
-    private CommandProcessor(final ArrayNode output) {
+    public CommandProcessor(final ObjectMapper objectMapper,
+                             final OutputSink output) {
+        this.objectMapper = objectMapper;
         this.output = output;
+
+        register(CommandType.PRINT_USERS, c -> handlePrintUsers(c.timestamp()));
+        register(CommandType.PRINT_TRANSACTIONS,
+                c -> handlePrintTansactions((PrintTransactions) c));
+        register(CommandType.ADD_ACCOUNT, c -> handleAddAccount((AddAccount) c));
+        register(CommandType.CREATE_CARD, c -> handleCreateCard((CreateCard) c));
+        register(CommandType.CREATE_ONE_TIME_CARD,
+                c -> handleCreateOneTimeCard((CreateOneTimeCard) c));
+        register(CommandType.ADD_FUNDS, c -> handleAddFunds((AddFunds) c));
+        register(CommandType.DELETE_ACCOUNT, c -> handleDeleteAccount((DeleteAccount) c));
+        register(CommandType.DELETE_CARD, c -> handleDeleteCard((DeleteCard) c));
+        register(CommandType.SET_MINIMUM_BALANCE,
+                c -> handleSetMinBalance((SetMinimumBalance) c));
+        register(CommandType.PAY_ONLINE, c -> handlePayOnline((PayOnline) c));
+        register(CommandType.SEND_MONEY, c -> handleSendMoney((SendMoney) c));
+        register(CommandType.SET_ALIAS, c -> handleSetAlias((SetAlias) c));
+        register(CommandType.CHECK_CARD_STATUS,
+                c -> handleCheckCardStatus((CheckCardStatus) c));
+        register(CommandType.CHANGE_INTEREST_RATE,
+                c -> handleChangeInterestRate((ChangeInterestRate) c));
+        register(CommandType.SPLIT_PAYMENT, c -> handleSplitPayment((SplitPayment) c));
+        register(CommandType.REPORT, c -> handleReport((Report) c));
+        register(CommandType.SPENDINGS_REPORT,
+                c -> handleSpendingsReport((SpendingsReport) c));
+        register(CommandType.UNKNOWN, c -> handleUnknownCommand((UnknownCommand) c));
     }
 
     /**
-     * Retrieves the singleton instance of CommandProcessor.
+     * Registers the handler of a command type in the dispatch table.
      *
-     * @param output The output ArrayNode for storing results.
-     * @return The singleton instance of CommandProcessor.
+     * @param type    The command type.
+     * @param handler The handler running commands of that type.
      */
-    public static CommandProcessor getInstance(final ArrayNode output) {
-        if (instance == null) {
-            instance = new CommandProcessor(output);
-        }
-        return instance;
+    private void register(final CommandType type,
+                          final CommandHandler handler) {
+        handlers[type.ordinal()] = handler;
     }
 
     /**
-     * Resets the singleton instance of CommandProcessor.
+     * Sets the journal recording the users, rates and every command processed from now
+     * on, with its outcome and results. Must be set before users and rates are
+     * initialized. Commands are journaled in the order they are processed, so the
+     * journal cannot be used with a parallel replay.
+     *
+     * @param journal The journal, or null to stop journaling.
      */
-    public static void resetInstance() {
-        instance = null;
+    public void setJournal(final CommandJournal journal) {
+        this.journal = journal;
+        this.journaledResults = journal == null ? null : new RecordingOutputSink(objectMapper);
     }
 
     /**
@@ -60,13 +113,98 @@ public final class CommandProcessor {
                                                 final List<ExchangeInput> rates) {
         for (UserInput user : users) {
             usersMap.put(user.getEmail(), new User(user.getFirstName(),
-                    user.getLastName(), user.getEmail()));
+                    user.getLastName(), user.getEmail(), context));
         }
 
         for (ExchangeInput rate : rates) {
             exchangeRates.add(new ExchangeRate(rate.getFrom(), rate.getTo(), rate.getRate()));
             exchangeRates.add(new ExchangeRate(rate.getTo(), rate.getFrom(), 1 / rate.getRate()));
         }
+        exchangeRateTable = new ExchangeRateTable(exchangeRates, currencies);
+        initialized = true;
+
+        if (journal != null) {
+            journal.appendBootstrap(users, rates);
+        }
+    }
+
+    /**
+     * Replaces the users and exchange rates with previously saved ones. The users must
+     * have been created on this processor's {@link #getContext() context}.
+     *
+     * @param users         The users, in the order they were first declared.
+     * @param rates         The directed exchange rates, in the order they were declared.
+     * @param processedCommands The number of commands the saved state reflects.
+     */
+    public void restore(final List<User> users,
+                        final List<ExchangeRate> rates,
+                        final int processedCommands) {
+        usersMap.clear();
+        for (User user : users) {
+            usersMap.put(user.getEmail(), user);
+        }
+
+        exchangeRates.clear();
+        exchangeRates.addAll(rates);
+        exchangeRateTable = new ExchangeRateTable(exchangeRates, currencies);
+        this.processedCommands.set(processedCommands);
+        initialized = true;
+    }
+
+    /**
+     * Tells whether users and exchange rates were initialized or restored, so a run
+     * recovered from a snapshot or journal does not take them from its input again.
+     *
+     * @return True once the bank has its users and rates.
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Gets the number of commands processed so far. Commands are numbered in the order
+     * they are processed, so this is also where a recovered run resumes its input.
+     *
+     * @return The number of commands processed.
+     */
+    public int getProcessedCommands() {
+        return processedCommands.get();
+    }
+
+    /**
+     * Gets the counters and latency histograms of the commands processed so far.
+     *
+     * @return The command metrics.
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the state shared by every user of this processor's bank.
+     *
+     * @return The bank context.
+     */
+    public BankContext getContext() {
+        return context;
+    }
+
+    /**
+     * Gets every user, in the order they were declared.
+     *
+     * @return An unmodifiable view of the users.
+     */
+    public Collection<User> getUsers() {
+        return Collections.unmodifiableCollection(usersMap.values());
+    }
+
+    /**
+     * Gets the directed exchange rates, in the order they were declared.
+     *
+     * @return An unmodifiable view of the exchange rates.
+     */
+    public List<ExchangeRate> getExchangeRates() {
+        return Collections.unmodifiableList(exchangeRates);
     }
 
     /**
@@ -79,70 +217,123 @@ public final class CommandProcessor {
                 Arrays.asList(inputData.getExchangeRates()));
 
         for (CommandInput command : inputData.getCommands()) {
-            switch (command.getCommand()) {
-                case "printUsers":
-                    handlePrintUsers(command.getTimestamp());
-                    break;
-                case "addAccount":
-                    handleAddAccount(command);
-                    break;
-                case "createCard":
-                    handleCreateCard(command);
-                    break;
-                case "createOneTimeCard":
-                    handleCreateOneTimeCard(command);
-                    break;
-                case "addFunds":
-                    handleAddFunds(command);
-                    break;
-                case "deleteAccount":
-                    handleDeleteAccount(command);
-                    break;
-                case "deleteCard":
-                    handleDeleteCard(command);
-                    break;
-                case "setMinimumBalance":
-                    handleSetMinBalance(command);
-                    break;
-                case "payOnline":
-                    handlePayOnline(command);
-                    break;
-                case "sendMoney":
-                    handleSendMoney(command);
-                    break;
-                case "printTransactions":
-                    handlePrintTansactions(command);
-                    break;
-                case "setAlias":
-                    handleSetAlias(command);
-                    break;
-                case "checkCardStatus":
-                    handleCheckCardStatus(command);
-                    break;
-                case "changeInterestRate":
-                    handleChangeInterestRate(command);
-                    break;
-                case "splitPayment":
-                    handleSplitPayment(command);
-                    break;
-                case "report":
-                    handleReport(command);
-                    break;
-                case "spendingsReport":
-                    handleSpendingsReport(command);
-                    break;
-                default:
-                    handleUnknownCommand(command);
-            }
+            processCommand(CommandDecoder.decode(command));
+        }
+    }
+
+    /**
+     * Processes a single command and performs the corresponding action. Users and
+     * exchange rates must have been initialized beforehand. With a journal set, the
+     * command is recorded once it completes, along with its sequence number, its outcome
+     * and its results. Every command is counted in the {@link #getMetrics() metrics},
+     * with its outcome and how long it took, and is reported to the flight recorder as a
+     * {@link CommandEvent} when a recording is running.
+     *
+     * @param command The command to process.
+     * @return How the command ended.
+     */
+    public CommandOutcome processCommand(final Command command) {
+        CommandEvent event = CommandEvent.beginIfEnabled();
+        long start = System.nanoTime();
+        int sequence = processedCommands.getAndIncrement();
+        CommandOutcome outcome = journal == null
+                ? dispatch(command) : dispatchJournaled(command, sequence);
+        metrics.record(command.type(), outcome, System.nanoTime() - start);
+        if (event != null) {
+            event.complete(command, outcome);
         }
+        return outcome;
+    }
+
+    /**
+     * Runs a command and records it in the journal, with its outcome and the results it
+     * produced.
+     *
+     * @param command  The command to run.
+     * @param sequence The position of the command among the processed commands.
+     * @return How the command ended.
+     */
+    private CommandOutcome dispatchJournaled(final Command command,
+                                             final int sequence) {
+        OutputSink previous = redirectedOutput.get();
+        journaledResults.start(output());
+        redirectedOutput.set(journaledResults);
+        CommandOutcome outcome;
+        try {
+            outcome = dispatch(command);
+        } finally {
+            redirectedOutput.set(previous);
+        }
+        journal.appendCommand(sequence, command, outcome, journaledResults);
+        return outcome;
+    }
+
+    /**
+     * Runs the handler of a command, looked up by its type.
+     *
+     * @param command The command to run.
+     * @return How the command ended.
+     */
+    private CommandOutcome dispatch(final Command command) {
+        return handlers[command.type().ordinal()].handle(command);
+    }
+
+    /**
+     * Processes a single command, sending its results to the given sink instead of the
+     * processor's own output. Only the calling thread is redirected, so commands
+     * touching unrelated users can be processed concurrently into separate sinks.
+     *
+     * @param command The command to process.
+     * @param sink    The sink receiving the results of this command.
+     * @return How the command ended.
+     */
+    public CommandOutcome processCommand(final Command command,
+                                         final OutputSink sink) {
+        redirectedOutput.set(sink);
+        try {
+            return processCommand(command);
+        } finally {
+            redirectedOutput.remove();
+        }
+    }
+
+    /**
+     * Gets the sink results are currently written to on this thread.
+     *
+     * @return The redirected sink if there is one, otherwise the processor's output.
+     */
+    private OutputSink output() {
+        OutputSink sink = redirectedOutput.get();
+        return sink != null ? sink : output;
+    }
+
+    /**
+     * Finds a user by email.
+     *
+     * @param email The email of the user.
+     * @return The user if found, otherwise null.
+     */
+    public User findUser(final String email) {
+        return usersMap.get(email);
+    }
+
+    /**
+     * Finds a card, with its account and owner, by its number.
+     *
+     * @param cardNumber The number of the card.
+     * @return The index entry of the card if found, otherwise null.
+     */
+    public CardEntry findCardEntry(final String cardNumber) {
+        return index.findByCardNumber(cardNumber);
     }
 
     /**
      * Handles the "printUsers" command, printing the list of users and their accounts.
      *
      * @param timestamp The timestamp of the command.
+     * @return How the command ended.
      */
-    private void handlePrintUsers(final int timestamp) {
+    private CommandOutcome handlePrintUsers(final int timestamp) {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", "printUsers");
 
@@ -158,7 +349,7 @@ public final class CommandProcessor {
                 ObjectNode accountNode = objectMapper.createObjectNode();
                 accountNode.put("IBAN", account.getAccountNumber());
                 accountNode.put("balance", account.getBalance());
-                accountNode.put("currency", account.getCurrency());
+                accountNode.put("currency", account.getCurrency().getCode());
                 accountNode.put("type", account.getAccountType());
 
                 ArrayNode cardsArray = objectMapper.createArrayNode();
@@ -178,203 +369,121 @@ public final class CommandProcessor {
 
         objectNode.putPOJO("output", usersArray);
         objectNode.put("timestamp", timestamp);
-        output.add(objectNode);
+        output().write(objectNode);
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles the "printTransactions" command, printing the list of transactions for a user.
      *
      * @param command The command containing the user's email and timestamp.
+     * @return How the command ended.
      */
-    private void handlePrintTansactions(final CommandInput command) {
-        ObjectNode objectNode = objectMapper.createObjectNode();
-        objectNode.put("command", "printTransactions");
+    private CommandOutcome handlePrintTansactions(final PrintTransactions command) {
+        User user = usersMap.get(command.email());
 
-        User user = usersMap.get(command.getEmail());
-        if (user == null) {
-            ArrayNode emptyArray = objectMapper.createArrayNode();
-            objectNode.set("output", emptyArray);
-            objectNode.put("timestamp", command.getTimestamp());
-            output.add(objectNode);
-            return;
-        }
-
-        ArrayNode transactionsArray = objectMapper.createArrayNode();
-        for (Transaction transaction : user.getTransactions()) {
-            ObjectNode transactionNode = objectMapper.createObjectNode();
-            String desc = transaction.getType();
-
-            switch (desc) {
-                case "addAccount":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    break;
-
-                case "addCard":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    transactionNode.put("card", transaction.getCardNumber());
-                    transactionNode.put("cardHolder", transaction.getEmail());
-                    transactionNode.put("account", transaction.getAccountNumber());
-                    break;
-
-                case "sendMoney":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    transactionNode.put("senderIBAN", transaction.getSenderIBAN());
-                    transactionNode.put("receiverIBAN", transaction.getReceiverIBAN());
-
-                    String amountWithCurrency = transaction.getAmount()
-                            + " " + transaction.getCurrency();
-                    transactionNode.put("amount", amountWithCurrency);
-
-                    String transferType = user.getEmail().equals(transaction.getEmail())
-                            ? "sent" : "received";
-                    transactionNode.put("transferType", transferType);
-                    break;
-
-                case "paySucessful":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    double amount = transaction.getAmount();
-                    transactionNode.put("amount", amount);
-                    transactionNode.put("commerciant", transaction.getCommerciant());
-                    break;
-
-                case "payNoFunds":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    break;
-
-                case "PayOnetime":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    transactionNode.put("card", transaction.getCardNumber());
-                    transactionNode.put("cardHolder", transaction.getEmail());
-                    transactionNode.put("account", transaction.getAccountNumber());
-                    break;
-
-                case "deleteCard":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    transactionNode.put("card", transaction.getCardNumber());
-                    transactionNode.put("cardHolder", transaction.getEmail());
-                    transactionNode.put("account", transaction.getAccountNumber());
-                    break;
-
-                case "checkCardStatus":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    break;
-                case "payFrosen":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    break;
-                case "changeInterestRate":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    break;
-
-                case "splitPayment":
-                    transactionNode.put("timestamp", transaction.getTimestamp());
-                    transactionNode.put("description", transaction.getDescription());
-                    transactionNode.put("currency", transaction.getCurrency());
-                    transactionNode.put("amount", transaction.getAmount());
-
-                    ArrayNode involvedAccountsArray = objectMapper.createArrayNode();
-                    for (String iban : transaction.getInvolvedIBANs()) {
-                        involvedAccountsArray.add(iban);
-                    }
-                    transactionNode.set("involvedAccounts", involvedAccountsArray);
-                    break;
-
-                default:
-                    break;
+        output().write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", "printTransactions");
+
+            generator.writeArrayFieldStart("output");
+            if (user != null) {
+                for (Transaction transaction : user.getTransactions()) {
+                    TransactionSerializer.writeHistoryEntry(generator, transaction, user);
+                }
             }
-            transactionsArray.add(transactionNode);
-        }
+            generator.writeEndArray();
 
-        objectNode.set("output", transactionsArray);
-        objectNode.put("timestamp", command.getTimestamp());
-        output.add(objectNode);
+            generator.writeNumberField("timestamp", command.timestamp());
+            generator.writeEndObject();
+        });
+        return user != null ? CommandOutcome.OK : CommandOutcome.NOT_FOUND;
     }
 
     /**
      * Handles the addition of a new account for a user.
      *
      * @param command The command containing the user's email and account details.
+     * @return How the command ended.
      */
-    private void handleAddAccount(final CommandInput command) {
-        User user = usersMap.get(command.getEmail());
-        if (user != null) {
-            user.addAccount(command);
+    private CommandOutcome handleAddAccount(final AddAccount command) {
+        User user = usersMap.get(command.email());
+        if (user == null) {
+            return CommandOutcome.NOT_FOUND;
         }
+        user.addAccount(command.accountType(), command.interestRate(),
+                currencies.intern(command.currency()), command.timestamp());
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles the creation of a card for a user.
      *
      * @param command The command containing the user's email, account number, and timestamp.
+     * @return How the command ended.
      */
-    private void handleCreateCard(final CommandInput command) {
-        String email = command.getEmail();
-        String accountNumber = command.getAccount();
-        int timestamp = command.getTimestamp();
+    private CommandOutcome handleCreateCard(final CreateCard command) {
+        String email = command.email();
+        String accountNumber = command.account();
+        int timestamp = command.timestamp();
 
         User user = usersMap.get(email);
 
         if (user == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
-        user.createCard(accountNumber, timestamp);
+        return user.createCard(accountNumber, timestamp)
+                ? CommandOutcome.OK : CommandOutcome.NOT_FOUND;
     }
 
     /**
      * Handles the creation of a one-time card for a user.
      *
      * @param command The command containing the user's email and card details.
+     * @return How the command ended.
      */
-    private void handleCreateOneTimeCard(final CommandInput command) {
-        User user = usersMap.get(command.getEmail());
-        if (user != null) {
-            user.createOneTimeCard(command);
+    private CommandOutcome handleCreateOneTimeCard(final CreateOneTimeCard command) {
+        User user = usersMap.get(command.email());
+        if (user == null) {
+            return CommandOutcome.NOT_FOUND;
         }
+        user.createOneTimeCard(command.account(), command.timestamp());
+        return CommandOutcome.OK;
     }
 
     /**
      * Adds funds to an account.
      *
      * @param command The command containing the account number and amount to be added.
+     * @return How the command ended.
      */
-    private void handleAddFunds(final CommandInput command) {
-        for (User user : usersMap.values()) {
-            for (Account account : user.getAccounts()) {
-                if (account.getAccountNumber().equals(command.getAccount())) {
-                    double newBalance = account.getBalance() + command.getAmount();
-                    account.setBalance(newBalance);
-                    break;
-                }
-            }
+    private CommandOutcome handleAddFunds(final AddFunds command) {
+        Account account = findAccountByIBANGlobally(command.account());
+        if (account == null) {
+            return CommandOutcome.NOT_FOUND;
         }
+        account.increaseBalance(command.amount());
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles the deletion of an account for a user.
      *
      * @param command The command containing the user's email and account details.
+     * @return How the command ended.
      */
-    private void handleDeleteAccount(final CommandInput command) {
+    private CommandOutcome handleDeleteAccount(final DeleteAccount command) {
         ObjectNode responseNode = objectMapper.createObjectNode();
         responseNode.put("command", "deleteAccount");
 
-        if (command.getEmail() == null || !usersMap.containsKey(command.getEmail())) {
-            addErrorToResponse(responseNode, "User not found", command.getTimestamp());
-            return;
+        if (command.email() == null || !usersMap.containsKey(command.email())) {
+            addErrorToResponse(responseNode, "User not found", command.timestamp());
+            return CommandOutcome.NOT_FOUND;
         }
 
-        User user = usersMap.get(command.getEmail());
+        User user = usersMap.get(command.email());
 
-        boolean deleted = user.deleteAccount(command.getAccount());
+        boolean deleted = user.deleteAccount(command.account());
 
         ObjectNode outputNode = objectMapper.createObjectNode();
         if (deleted) {
@@ -383,11 +492,12 @@ public final class CommandProcessor {
             outputNode.put("error",
                     "Account couldn't be deleted - see org.poo.transactions for details");
         }
-        outputNode.put("timestamp", command.getTimestamp());
+        outputNode.put("timestamp", command.timestamp());
 
         responseNode.set("output", outputNode);
-        responseNode.put("timestamp", command.getTimestamp());
-        output.add(responseNode);
+        responseNode.put("timestamp", command.timestamp());
+        output().write(responseNode);
+        return deleted ? CommandOutcome.OK : CommandOutcome.REJECTED;
     }
 
     /**
@@ -405,60 +515,64 @@ public final class CommandProcessor {
         outputNode.put("timestamp", timestamp);
 
         responseNode.set("output", outputNode);
-        output.add(responseNode);
+        output().write(responseNode);
     }
 
     /**
      * Handles the deletion of a card for a user.
      *
      * @param command The command containing the user's email, card number, and timestamp.
+     * @return How the command ended.
      */
-    private void handleDeleteCard(final CommandInput command) {
+    private CommandOutcome handleDeleteCard(final DeleteCard command) {
         ObjectNode responseNode = objectMapper.createObjectNode();
         responseNode.put("command", "deleteCard");
-        responseNode.put("timestamp", command.getTimestamp());
+        responseNode.put("timestamp", command.timestamp());
 
-        if (command.getEmail() == null || !usersMap.containsKey(command.getEmail())) {
-            addErrorToResponse(responseNode, "User not found", command.getTimestamp());
-            return;
+        if (command.email() == null || !usersMap.containsKey(command.email())) {
+            addErrorToResponse(responseNode, "User not found", command.timestamp());
+            return CommandOutcome.NOT_FOUND;
         }
 
-        if (command.getCardNumber() == null || command.getCardNumber().isEmpty()) {
-            addErrorToResponse(responseNode, "Card number is missing", command.getTimestamp());
-            return;
+        if (command.cardNumber() == null || command.cardNumber().isEmpty()) {
+            addErrorToResponse(responseNode, "Card number is missing", command.timestamp());
+            return CommandOutcome.REJECTED;
         }
 
-        User user = usersMap.get(command.getEmail());
+        User user = usersMap.get(command.email());
 
         Transaction deleteCardTransaction =
                 user.deleteCard(
-                        command.getCardNumber(), command.getTimestamp());
+                        command.cardNumber(), command.timestamp());
 
-        if (deleteCardTransaction != null) {
-            user.addTransaction(deleteCardTransaction);
-        } else {
-            addErrorToResponse(responseNode, "Card not found", command.getTimestamp());
+        if (deleteCardTransaction == null) {
+            addErrorToResponse(responseNode, "Card not found", command.timestamp());
+            return CommandOutcome.NOT_FOUND;
         }
+        user.addTransaction(deleteCardTransaction);
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles setting the minimum balance for a specific account.
      *
      * @param command The command containing the account details and the minimum balance amount.
+     * @return How the command ended.
      */
-    private void handleSetMinBalance(final CommandInput command) {
-        if (command.getAccount() == null || command.getAccount().isEmpty()) {
-            return;
+    private CommandOutcome handleSetMinBalance(final SetMinimumBalance command) {
+        if (command.account() == null || command.account().isEmpty()) {
+            return CommandOutcome.REJECTED;
         }
-        if (command.getAmount() <= 0) {
-            return;
+        if (command.amount() <= 0) {
+            return CommandOutcome.REJECTED;
         }
 
-        for (User user : usersMap.values()) {
-            if (user.setAccountMinBalance(command.getAccount(), command.getAmount())) {
-                return;
-            }
+        User user = findUserByAccount(command.account());
+        if (user == null) {
+            return CommandOutcome.NOT_FOUND;
         }
+        return user.setAccountMinBalance(command.account(), command.amount())
+                ? CommandOutcome.OK : CommandOutcome.NOT_FOUND;
     }
 
     /**
@@ -466,26 +580,29 @@ public final class CommandProcessor {
      *
      * @param command The command containing details of the payment,
      *                such as card number, amount, and currency.
+     * @return How the command ended.
      */
-    private void handlePayOnline(final CommandInput command) {
+    private CommandOutcome handlePayOnline(final PayOnline command) {
         ObjectNode responseNode = objectMapper.createObjectNode();
         responseNode.put("command", "payOnline");
 
         if (isInvalidCommand(command)) {
-            addCardNotFoundOutput(responseNode, command.getTimestamp());
-            return;
+            addCardNotFoundOutput(responseNode, command.timestamp());
+            return CommandOutcome.NOT_FOUND;
         }
 
-        User user = usersMap.get(command.getEmail());
+        User user = usersMap.get(command.email());
         if (user == null) {
-            addCardNotFoundOutput(responseNode, command.getTimestamp());
-            return;
+            addCardNotFoundOutput(responseNode, command.timestamp());
+            return CommandOutcome.NOT_FOUND;
         }
 
-        boolean cardFound = user.processTransaction(command, responseNode, this);
-        if (!cardFound) {
-            addCardNotFoundOutput(responseNode, command.getTimestamp());
+        CommandOutcome outcome = user.processTransaction(command,
+                currencies.intern(command.currency()), responseNode, this);
+        if (outcome == CommandOutcome.NOT_FOUND) {
+            addCardNotFoundOutput(responseNode, command.timestamp());
         }
+        return outcome;
     }
 
     /**
@@ -494,9 +611,9 @@ public final class CommandProcessor {
      * @param command The command to validate.
      * @return True if the command is invalid, otherwise false.
      */
-    private boolean isInvalidCommand(final CommandInput command) {
-        return command.getCardNumber() == null || command.getCardNumber().isEmpty()
-                || command.getAmount() <= 0 || command.getCurrency() == null;
+    private boolean isInvalidCommand(final PayOnline command) {
+        return command.cardNumber() == null || command.cardNumber().isEmpty()
+                || command.amount() <= 0 || command.currency() == null;
     }
 
     /**
@@ -512,56 +629,20 @@ public final class CommandProcessor {
         outputNode.put("description", "Card not found");
         responseNode.set("output", outputNode);
         responseNode.put("timestamp", timestamp);
-        output.add(responseNode);
+        output().write(responseNode);
     }
 
     /**
-     * Retrieves the exchange rate between two currencies.
+     * Retrieves the exchange rate between two currencies, including rates reached
+     * through intermediate conversions.
      *
      * @param from The currency to convert from.
      * @param to   The currency to convert to.
      * @return The exchange rate, or 0 if no rate is found.
      */
-    public double getExchangeRateFromTo(final String from,
-                                        final String to) {
-        return findExchangeRate(from, to, new HashSet<>());
-    }
-
-    /**
-     * Recursively finds the exchange rate between two currencies, considering
-     * intermediate conversions.
-     *
-     * @param from    The starting currency.
-     * @param to      The target currency.
-     * @param visited A set of visited currencies to prevent cyclic searches.
-     * @return The calculated exchange rate, or 0 if no valid conversion is found.
-     */
-    private double findExchangeRate(final String from,
-                                    final String to,
-                                    final Set<String> visited) {
-        if (from.equalsIgnoreCase(to)) {
-            return 1.0;
-        }
-
-        visited.add(from.toUpperCase());
-        for (ExchangeRate exchangeRate : exchangeRates) {
-            if (exchangeRate.getFromCurrency().equalsIgnoreCase(from)
-                    && exchangeRate.getToCurrency().equalsIgnoreCase(to)) {
-                return exchangeRate.getRate();
-            }
-        }
-
-        for (ExchangeRate exchangeRate : exchangeRates) {
-            if (exchangeRate.getFromCurrency().equalsIgnoreCase(from)
-                    && !visited.contains(exchangeRate.getToCurrency().toUpperCase())) {
-                double intermediateRate =
-                        findExchangeRate(exchangeRate.getToCurrency(), to, visited);
-                if (intermediateRate > 0) {
-                    return exchangeRate.getRate() * intermediateRate;
-                }
-            }
-        }
-        return 0;
+    public double getExchangeRateFromTo(final Currency from,
+                                        final Currency to) {
+        return exchangeRateTable.getRate(from, to);
     }
 
     /**
@@ -569,50 +650,55 @@ public final class CommandProcessor {
      *
      * @param command The command containing sender and receiver details, as well
      *                as the amount to transfer.
+     * @return How the command ended.
      */
-    private void handleSendMoney(final CommandInput command) {
-        User senderUser = usersMap.get(command.getEmail());
+    private CommandOutcome handleSendMoney(final SendMoney command) {
+        User senderUser = usersMap.get(command.email());
         if (senderUser == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        Account senderAccount = senderUser.findAccountByIBAN(command.getAccount());
+        Account senderAccount = senderUser.findAccountByIBAN(command.account());
         if (senderAccount == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        Account receiverAccount = findAccountByIBANGlobally(command.getReceiver());
+        Account receiverAccount = findAccountByIBANGlobally(command.receiver());
         if (receiverAccount == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        if (!senderAccount.canSendFunds(command.getAmount())) {
-            senderUser.addTransaction(
-                    Transaction.createInsufficientFundsTransaction(
-                            command.getTimestamp(), senderAccount.getAccountNumber()));
-            return;
-        }
+        List<Account> locked = AccountLocks.lockAll(List.of(senderAccount, receiverAccount));
+        try {
+            if (!senderAccount.canSendFunds(command.amount())) {
+                senderUser.addTransaction(
+                        Transaction.createInsufficientFundsTransaction(
+                                command.timestamp(), senderAccount.getAccountNumber()));
+                return CommandOutcome.INSUFFICIENT_FUNDS;
+            }
 
-        double convertedAmount =
-                senderAccount.convertAmountIfNecessary(
-                        command.getAmount(), receiverAccount.getCurrency(),
-                        this::getExchangeRateFromTo);
-        if (convertedAmount < 0) {
-            return;
-        }
+            double convertedAmount =
+                    senderAccount.convertAmountIfNecessary(
+                            command.amount(), receiverAccount.getCurrency(),
+                            this::getExchangeRateFromTo);
+            if (convertedAmount < 0) {
+                return CommandOutcome.REJECTED;
+            }
 
-        senderAccount.decreaseBalance(command.getAmount());
-        receiverAccount.increaseBalance(convertedAmount);
+            senderAccount.decreaseBalance(command.amount());
+            receiverAccount.increaseBalance(convertedAmount);
+        } finally {
+            AccountLocks.unlockAll(locked);
+        }
 
-        senderUser.addTransaction(
-                Transaction.createSendMoneyTransaction(
-                        command, senderAccount, receiverAccount));
+        Transaction transfer =
+                Transaction.createSendMoneyTransaction(command, senderAccount, receiverAccount);
+        senderUser.addTransaction(transfer);
         User receiverUser = findUserByAccount(receiverAccount.getAccountNumber());
         if (receiverUser != null) {
-            receiverUser.addTransaction(
-                    Transaction.createReceiveMoneyTransaction(
-                            command, senderAccount, receiverAccount));
+            receiverUser.addTransaction(transfer);
         }
+        return CommandOutcome.OK;
     }
 
     /**
@@ -622,13 +708,7 @@ public final class CommandProcessor {
      * @return The account if found, otherwise null.
      */
     public Account findAccountByIBANGlobally(final String iban) {
-        for (User user : usersMap.values()) {
-            Account account = user.findAccountByIBAN(iban);
-            if (account != null) {
-                return account;
-            }
-        }
-        return null;
+        return index.findAccount(iban);
     }
 
     /**
@@ -638,66 +718,64 @@ public final class CommandProcessor {
      * @return The user if found, otherwise null.
      */
     public User findUserByAccount(final String iban) {
-        for (User user : usersMap.values()) {
-            if (user.findAccountByIBAN(iban) != null) {
-                return user;
-            }
-        }
-        return null;
+        return index.findOwner(iban);
     }
 
     /**
      * Handles setting an alias for an account.
      *
      * @param command The command containing the alias and account details.
+     * @return How the command ended.
      */
-    private void handleSetAlias(final CommandInput command) {
-        User user = usersMap.get(command.getEmail());
+    private CommandOutcome handleSetAlias(final SetAlias command) {
+        User user = usersMap.get(command.email());
         if (user == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        if (!user.setAliasForAccount(command.getAlias(), command.getAccount())) {
-            return;
+        if (!user.setAliasForAccount(command.alias(), command.account())) {
+            return CommandOutcome.NOT_FOUND;
         }
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles checking the status of a card.
      *
      * @param command The command containing card details and a timestamp.
+     * @return How the command ended.
      */
-    private void handleCheckCardStatus(final CommandInput command) {
+    private CommandOutcome handleCheckCardStatus(final CheckCardStatus command) {
         ObjectNode responseNode = objectMapper.createObjectNode();
         responseNode.put("command", "checkCardStatus");
 
-        if (command.getCardNumber() == null || command.getCardNumber().isEmpty()) {
-            addCheckCardStatusOutput(responseNode, command.getTimestamp(), "Card not found");
-            return;
+        if (command.cardNumber() == null || command.cardNumber().isEmpty()) {
+            addCheckCardStatusOutput(responseNode, command.timestamp(), "Card not found");
+            return CommandOutcome.NOT_FOUND;
         }
 
-        User user = findUserByCard(command.getCardNumber());
-        if (user == null) {
-            addCheckCardStatusOutput(responseNode, command.getTimestamp(), "Card not found");
-            return;
+        CardEntry entry = index.findByCardNumber(command.cardNumber());
+        if (entry == null) {
+            addCheckCardStatusOutput(responseNode, command.timestamp(), "Card not found");
+            return CommandOutcome.NOT_FOUND;
         }
 
-        Card card = user.findCardByNumber(command.getCardNumber());
-        if (card == null || "frozen".equals(card.getStatus())) {
-            return;
+        Card card = entry.getCard();
+        if ("frozen".equals(card.getStatus())) {
+            return CommandOutcome.FROZEN;
         }
 
-        Account account = user.findAccountByCard(card);
-        if (account == null) {
-            return;
-        }
+        User user = entry.getOwner();
+        Account account = entry.getAccount();
 
-        if (account.isBelowMinimumBalance()) {
-            card.freeze();
-            user.addTransaction(
-                    Transaction.createFreezeTransaction(command.getTimestamp(),
-                            account, card));
+        if (!account.isBelowMinimumBalance()) {
+            return CommandOutcome.OK;
         }
+        card.freeze();
+        user.addTransaction(
+                Transaction.createFreezeTransaction(command.timestamp(),
+                        account, card));
+        return CommandOutcome.FROZEN;
     }
 
     /**
@@ -715,71 +793,76 @@ public final class CommandProcessor {
         outputNode.put("description", description);
         responseNode.set("output", outputNode);
         responseNode.put("timestamp", timestamp);
-        output.add(responseNode);
-    }
-
-    /**
-     * Finds a user by a card number.
-     *
-     * @param cardNumber The card number to find the associated user.
-     * @return The user if found, otherwise null.
-     */
-    private User findUserByCard(final String cardNumber) {
-        for (User user : usersMap.values()) {
-            if (user.findCardByNumber(cardNumber) != null) {
-                return user;
-            }
-        }
-        return null;
+        output().write(responseNode);
     }
 
     /**
      * Handles changing the interest rate for an account.
      *
      * @param command The command containing account details, interest rate, and timestamp.
+     * @return How the command ended.
      */
-    private void handleChangeInterestRate(final CommandInput command) {
-        User user = usersMap.get(command.getEmail());
+    private CommandOutcome handleChangeInterestRate(final ChangeInterestRate command) {
+        User user = usersMap.get(command.email());
         if (user == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
 
         boolean success = user.changeAccountInterestRate(
-                command.getAccount(),
-                command.getInterestRate(),
-                command.getTimestamp(),
-                output,
+                command.account(),
+                command.interestRate(),
+                command.timestamp(),
+                output(),
                 objectMapper
         );
 
-        if (!success) {
-            ObjectNode responseNode = objectMapper.createObjectNode();
-            responseNode.put("command", "changeInterestRate");
+        if (success) {
+            return CommandOutcome.OK;
+        }
+
+        ObjectNode responseNode = objectMapper.createObjectNode();
+        responseNode.put("command", "changeInterestRate");
 
-            ObjectNode outputNode = objectMapper.createObjectNode();
-            outputNode.put("timestamp", command.getTimestamp());
-            outputNode.put("description", "This is not a savings account");
+        ObjectNode outputNode = objectMapper.createObjectNode();
+        outputNode.put("timestamp", command.timestamp());
+        outputNode.put("description", "This is not a savings account");
 
-            responseNode.set("output", outputNode);
-            responseNode.put("timestamp", command.getTimestamp());
-            output.add(responseNode);
-        }
+        responseNode.set("output", outputNode);
+        responseNode.put("timestamp", command.timestamp());
+        output().write(responseNode);
+        return CommandOutcome.REJECTED;
     }
 
     /**
      * Handles splitting a payment among multiple accounts.
      *
      * @param command The command containing the accounts, total amount, currency, and timestamp.
+     * @return How the command ended.
      */
-    private void handleSplitPayment(final CommandInput command) {
-        List<String> accountsForSplit = command.getAccounts();
-        double totalAmount = command.getAmount();
-        String currency = command.getCurrency();
-        int timestamp = command.getTimestamp();
+    private CommandOutcome handleSplitPayment(final SplitPayment command) {
+        SplitPaymentEvent event = SplitPaymentEvent.beginIfEnabled();
+        CommandOutcome outcome = splitPayment(command);
+        if (event != null) {
+            event.complete(command, outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Splits a payment among the accounts of a command, or records why it failed.
+     *
+     * @param command The split payment command.
+     * @return How the payment ended.
+     */
+    private CommandOutcome splitPayment(final SplitPayment command) {
+        List<String> accountsForSplit = command.accounts();
+        double totalAmount = command.amount();
+        Currency currency = currencies.intern(command.currency());
+        int timestamp = command.timestamp();
 
         if (accountsForSplit.isEmpty()) {
-            return;
+            return CommandOutcome.REJECTED;
         }
 
         double share = totalAmount / accountsForSplit.size();
@@ -788,16 +871,22 @@ public final class CommandProcessor {
 
         if (!prepareAccountsAndUsers(accountsForSplit, accounts, involvedUsers)) {
             handleSplitPaymentFailure(accountsForSplit, timestamp);
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        if (!validateBalancesAndCurrency(accounts, share, currency)) {
-            handleSplitPaymentFailure(accountsForSplit, timestamp);
-            return;
-        }
+        List<Account> locked = AccountLocks.lockAll(accounts);
+        try {
+            if (!validateBalancesAndCurrency(accounts, share, currency)) {
+                handleSplitPaymentFailure(accountsForSplit, timestamp);
+                return CommandOutcome.INSUFFICIENT_FUNDS;
+            }
 
-        executeSplitPayment(accounts, involvedUsers, share,
-                currency, timestamp, accountsForSplit, totalAmount);
+            executeSplitPayment(accounts, involvedUsers, share,
+                    currency, timestamp, accountsForSplit, totalAmount);
+            return CommandOutcome.OK;
+        } finally {
+            AccountLocks.unlockAll(locked);
+        }
     }
 
     /**
@@ -837,7 +926,7 @@ public final class CommandProcessor {
      */
     private boolean validateBalancesAndCurrency(final List<Account> accounts,
                                                 final double share,
-                                                final String currency) {
+                                                final Currency currency) {
         for (Account account : accounts) {
             double convertedShare = calculateConvertedShare(account, share, currency);
             if (convertedShare < 0 || account.getBalance() < convertedShare) {
@@ -857,8 +946,8 @@ public final class CommandProcessor {
      */
     private double calculateConvertedShare(final Account account,
                                            final double share,
-                                           final String currency) {
-        if (currency.equalsIgnoreCase(account.getCurrency())) {
+                                           final Currency currency) {
+        if (currency.isSameAs(account.getCurrency())) {
             return share;
         }
 
@@ -867,7 +956,8 @@ public final class CommandProcessor {
     }
 
     /**
-     * Executes the split payment by deducting shares from accounts and creating transactions.
+     * Executes the split payment by deducting shares from accounts and recording one
+     * transaction that every participant shares.
      *
      * @param accounts     The list of accounts involved in the payment.
      * @param users        The list of users owning the accounts.
@@ -880,25 +970,23 @@ public final class CommandProcessor {
     private void executeSplitPayment(final List<Account> accounts,
                                      final List<User> users,
                                      final double share,
-                                     final String currency,
+                                     final Currency currency,
                                      final int timestamp,
                                      final List<String> involvedIBANs,
                                      final double totalAmount) {
         for (Account account : accounts) {
             double convertedShare = calculateConvertedShare(account, share, currency);
-            account.setBalance(account.getBalance() - convertedShare);
+            account.decreaseBalance(convertedShare);
         }
 
-        for (int i = 0; i < accounts.size(); i++) {
-            Account account = accounts.get(i);
-            User user = users.get(i);
-
-            String description = String.format("Split payment of %.2f %s", totalAmount, currency);
-            Transaction splitPaymentTransaction =
-                    new Transaction("splitPayment", timestamp, description);
-            splitPaymentTransaction.setCurrency(currency);
-            splitPaymentTransaction.setAmount(share);
-            splitPaymentTransaction.setInvolvedIBANs(new ArrayList<>(involvedIBANs));
+        String description = String.format("Split payment of %.2f %s", totalAmount,
+                currency.getCode());
+        Transaction splitPaymentTransaction =
+                new Transaction(TransactionKind.SPLIT_PAYMENT, timestamp, description);
+        splitPaymentTransaction.setCurrency(currency);
+        splitPaymentTransaction.setAmount(share);
+        splitPaymentTransaction.setInvolvedIBANs(involvedIBANs);
+        for (User user : users) {
             user.addTransaction(splitPaymentTransaction);
         }
     }
@@ -912,6 +1000,9 @@ public final class CommandProcessor {
      */
     private void handleSplitPaymentFailure(final List<String> accountsForSplit,
                                            final int timestamp) {
+        Transaction failedTransaction =
+                new Transaction(TransactionKind.PAY_NO_FUNDS, timestamp,
+                        "Split payment failed due to insufficient funds");
         for (String iban : accountsForSplit) {
             Account account = findAccountByIBANGlobally(iban);
             if (account == null) {
@@ -919,9 +1010,6 @@ public final class CommandProcessor {
             }
             User user = findUserByAccount(account.getAccountNumber());
             if (user != null) {
-                Transaction failedTransaction =
-                        new Transaction("payNoFunds", timestamp,
-                                "Split payment failed due to insufficient funds");
                 user.addTransaction(failedTransaction);
             }
         }
@@ -931,75 +1019,81 @@ public final class CommandProcessor {
      * Handles generating a report for a specific account.
      *
      * @param command The command containing account details and report parameters.
+     * @return How the command ended.
      */
-    private void handleReport(final CommandInput command) {
-        String iban = command.getAccount();
-        int startTimestamp = command.getStartTimestamp();
-        int endTimestamp = command.getEndTimestamp();
-        String reportType = command.getCommand();
-        int timestamp = command.getTimestamp();
+    private CommandOutcome handleReport(final Report command) {
+        String iban = command.account();
+        int startTimestamp = command.startTimestamp();
+        int endTimestamp = command.endTimestamp();
+        String reportType = command.type().getName();
+        int timestamp = command.timestamp();
 
         Account account = findAccountByIBANGlobally(iban);
         if (account == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
         User user = findUserByAccount(iban);
         if (user == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        ObjectNode reportOutput = account.generateAccountReport(user, startTimestamp, endTimestamp);
-
-        ObjectNode finalReport = objectMapper.createObjectNode();
-        finalReport.put("command", reportType);
-        finalReport.set("output", reportOutput);
-        finalReport.put("timestamp", timestamp);
-        output.add(finalReport);
+        output().write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", reportType);
+            generator.writeFieldName("output");
+            account.writeAccountReport(generator, startTimestamp, endTimestamp);
+            generator.writeNumberField("timestamp", timestamp);
+            generator.writeEndObject();
+        });
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles generating a spendings report for a specific account.
      *
      * @param command The command containing account details and report parameters.
+     * @return How the command ended.
      */
-    private void handleSpendingsReport(final CommandInput command) {
-        String iban = command.getAccount();
-        int startTimestamp = command.getStartTimestamp();
-        int endTimestamp = command.getEndTimestamp();
-        int timestamp = command.getTimestamp();
-        String commandType = command.getCommand();
+    private CommandOutcome handleSpendingsReport(final SpendingsReport command) {
+        String iban = command.account();
+        int startTimestamp = command.startTimestamp();
+        int endTimestamp = command.endTimestamp();
+        int timestamp = command.timestamp();
+        String commandType = command.type().getName();
 
         Account account = findAccountByIBANGlobally(iban);
         if (account == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
         User user = findUserByAccount(iban);
         if (user == null) {
-            return;
+            return CommandOutcome.NOT_FOUND;
         }
 
-        ObjectNode reportOutput = account.generateSpendingsReport(user,
-                startTimestamp, endTimestamp);
-
-        ObjectNode finalReport = objectMapper.createObjectNode();
-        finalReport.put("command", commandType);
-        finalReport.set("output", reportOutput);
-        finalReport.put("timestamp", timestamp);
-
-        output.add(finalReport);
+        output().write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", commandType);
+            generator.writeFieldName("output");
+            account.writeSpendingsReport(generator, startTimestamp, endTimestamp);
+            generator.writeNumberField("timestamp", timestamp);
+            generator.writeEndObject();
+        });
+        return CommandOutcome.OK;
     }
 
     /**
      * Handles an unknown command by adding it to the output with a status message.
      *
      * @param command The unknown command received.
+     * @return How the command ended.
      */
-    private void handleUnknownCommand(final CommandInput command) {
+    private CommandOutcome handleUnknownCommand(final UnknownCommand command) {
         ObjectNode objectNode = objectMapper.createObjectNode();
-        objectNode.put("command", command.getCommand());
+        objectNode.put("command", command.name());
         objectNode.put("status", "Unknown command");
-        output.add(objectNode);
+        output().write(objectNode);
+        return CommandOutcome.UNKNOWN_COMMAND;
     }
 }
\ No newline at end of file
@@ -1,26 +1,66 @@
 package org.poo.main;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.checker.Checker;
 import org.poo.checker.CheckerConstants;
-import org.poo.fileio.ObjectInput;
-import org.poo.utils.Utils;
+import org.poo.checker.TestResult;
+import org.poo.main.output.JsonGeneratorOutputSink;
+import org.poo.main.output.OutputSink;
+import org.poo.main.persistence.CommandJournal;
+import org.poo.main.persistence.JournalReplayer;
+import org.poo.main.persistence.SnapshotLoader;
+import org.poo.main.persistence.SnapshotWriter;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
  */
 public final class Main {
+    /**
+     * System property turning on the parallel replay of each input's commands. It cannot
+     * be combined with {@link #JOURNAL_DIR_PROPERTY}, whose journal must hold the commands
+     * in input order.
+     */
+    public static final String PARALLEL_REPLAY_PROPERTY = "poo.parallelReplay";
+
+    /**
+     * System property naming a directory where a command journal is kept for each input.
+     * A run that finishes resets its journal. When a run finds the journal of an
+     * unfinished one, as after a crash, it recovers the state and the results of that
+     * run from it and only processes the commands after the last recovered one.
+     */
+    public static final String JOURNAL_DIR_PROPERTY = "poo.journalDir";
+
+    /**
+     * System property naming a directory where a snapshot of each bank is written once
+     * its input has been processed. A snapshot is only loaded to recover a run whose
+     * journal shows it did not finish; any other run starts from its input.
+     */
+    public static final String SNAPSHOT_DIR_PROPERTY = "poo.snapshotDir";
+
+    /**
+     * Prefix of the per-command metrics file written next to each result.
+     */
+    public static final String METRICS_PREFIX = "metrics_";
+
     /**
      * for coding style
      */
@@ -50,16 +90,61 @@ public final class Main {
                 sorted(Comparator.comparingInt(Main::fileConsumer))
                 .toList();
 
-        for (File file : sortedFiles) {
-            String filepath = CheckerConstants.OUT_PATH + file.getName();
-            File out = new File(filepath);
-            boolean isCreated = out.createNewFile();
-            if (isCreated) {
-                action(file.getName(), filepath);
+        ExecutorService executor =
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<TestResult> results;
+        try {
+            // largest inputs first, so they do not start last and leave the other cores idle
+            List<Future<TestResult>> runs =
+                    new ArrayList<>(Collections.nCopies(sortedFiles.size(), null));
+            List<Integer> bySize = IntStream.range(0, sortedFiles.size()).boxed()
+                    .sorted(Comparator.comparingLong((Integer i) -> sortedFiles.get(i).length())
+                            .reversed())
+                    .toList();
+            for (int i : bySize) {
+                File file = sortedFiles.get(i);
+                String filepath = CheckerConstants.OUT_PATH + file.getName();
+                File out = new File(filepath);
+                boolean isCreated = out.createNewFile();
+                runs.set(i, executor.submit(() -> {
+                    if (isCreated) {
+                        action(file.getName(), filepath);
+                    }
+                    return Checker.checkTest(file.getName());
+                }));
             }
+            results = awaitAll(runs);
+        } finally {
+            executor.shutdown();
         }
 
-        Checker.calculateScore();
+        Checker.calculateScore(results);
+    }
+
+    /**
+     * Waits for every submitted run, rethrowing the first failure.
+     *
+     * @param runs the runs to wait for
+     * @param <T>  the type of the run results
+     * @return the results of the runs, in the order of {@code runs}
+     * @throws IOException if a run failed while reading or writing
+     */
+    private static <T> List<T> awaitAll(final List<Future<T>> runs) throws IOException {
+        List<T> results = new ArrayList<>(runs.size());
+        for (Future<T> run : runs) {
+            try {
+                results.add(run.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a test run", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
     }
 
     /**
@@ -69,19 +154,109 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        Utils.resetRandom();
-        CommandProcessor.resetInstance();
         ObjectMapper objectMapper = new ObjectMapper();
         File file = new File(CheckerConstants.TESTS_PATH + filePath1);
-        ObjectInput inputData = objectMapper.readValue(file, ObjectInput.class);
 
-        ArrayNode output = objectMapper.createArrayNode();
+        boolean parallel = Boolean.getBoolean(PARALLEL_REPLAY_PROPERTY);
+        Path journalPath = pathIn(JOURNAL_DIR_PROPERTY, filePath1 + ".journal");
+        Path snapshotPath = pathIn(SNAPSHOT_DIR_PROPERTY, filePath1 + ".snapshot");
+        if (parallel && journalPath != null) {
+            throw new IllegalArgumentException(PARALLEL_REPLAY_PROPERTY
+                    + " cannot be combined with " + JOURNAL_DIR_PROPERTY
+                    + ": the journal must hold the commands in input order");
+        }
+        try (OutputSink output = new JsonGeneratorOutputSink(objectMapper,
+                new File(filePath2), true)) {
+            CommandProcessor commands = new CommandProcessor(objectMapper, output);
+            boolean recovered = recover(commands, output, snapshotPath, journalPath);
+
+            try (CommandJournal journal = journalPath == null ? null
+                    : recovered ? CommandJournal.open(journalPath)
+                    : CommandJournal.create(journalPath)) {
+                commands.setJournal(journal);
+                ParallelReplayer replayer = parallel
+                        ? new ParallelReplayer(commands, output, objectMapper)
+                        : null;
+                StreamingInputReader reader =
+                        new StreamingInputReader(objectMapper, commands, replayer);
+                if (recovered) {
+                    reader.resumeAfter(commands.getProcessedCommands());
+                }
+                reader.read(file);
+                writeMetrics(objectMapper, commands,
+                        new File(CheckerConstants.RESULT_PATH, METRICS_PREFIX + filePath1));
+
+                if (snapshotPath != null && journal != null) {
+                    // a snapshot must never reflect commands the journal could lose
+                    journal.commit();
+                    SnapshotWriter.write(commands, snapshotPath, journal.getRunId());
+                } else if (snapshotPath != null) {
+                    SnapshotWriter.write(commands, snapshotPath);
+                }
+                if (journal != null) {
+                    journal.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a per-input file in the directory named by a system property.
+     *
+     * @param property the system property naming the directory
+     * @param name     the name of the file
+     * @return the file, or null if the property is not set
+     */
+    private static Path pathIn(final String property,
+                               final String name) {
+        String directory = System.getProperty(property);
+        return directory == null ? null : Paths.get(directory, name);
+    }
 
-        CommandProcessor commands = CommandProcessor.getInstance(output);
-        commands.processCommands(inputData);
+    /**
+     * Recovers the run a crash cut short: if the input's journal shows an unfinished run,
+     * its state is rebuilt, from the snapshot of that same run if it got to write one, and
+     * the results of its commands are written to the output again. The journal is replayed
+     * before it is reopened for appending, so the replayed commands are not recorded
+     * twice.
+     *
+     * @param commands     the fresh processor of this run
+     * @param output       the output of this run
+     * @param snapshotPath the snapshot of the input, or null if snapshots are off
+     * @param journalPath  the journal of the input, or null if journaling is off
+     * @return true if an unfinished run was recovered
+     * @throws IOException in case of exceptions to reading
+     */
+    private static boolean recover(final CommandProcessor commands,
+                                   final OutputSink output,
+                                   final Path snapshotPath,
+                                   final Path journalPath) throws IOException {
+        long runId = journalPath == null ? 0 : JournalReplayer.unfinishedRun(journalPath);
+        if (runId == 0) {
+            return false;
+        }
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            SnapshotLoader.loadFromRun(snapshotPath, commands, runId);
+        }
+        JournalReplayer.replay(journalPath, commands, output);
+        return true;
+    }
 
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), output);
+    /**
+     * Writes the command counters and latencies of a processor, pretty-printed.
+     *
+     * @param objectMapper the mapper whose settings the file is written with
+     * @param commands     the processor that ran the input
+     * @param file         the metrics file
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeMetrics(final ObjectMapper objectMapper,
+                                     final CommandProcessor commands,
+                                     final File file) throws IOException {
+        try (JsonGenerator generator = objectMapper.writerWithDefaultPrettyPrinter()
+                .createGenerator(file, JsonEncoding.UTF8)) {
+            commands.getMetrics().writeTo(generator);
+        }
     }
 
     /**
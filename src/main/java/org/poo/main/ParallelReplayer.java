@@ -0,0 +1,345 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.main.commands.*;
+import org.poo.main.output.BufferedOutputSink;
+import org.poo.main.output.OutputSink;
+import org.poo.main.structures.CardEntry;
+import org.poo.main.structures.User;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replays a command stream on a fork-join pool while producing exactly the output of a
+ * sequential run.
+ *
+ * <p>Every command is assigned to the lanes of the users whose state it touches. A
+ * command only waits for the previous command of each of its lanes, so commands of
+ * unrelated users run concurrently, while transfers and split payments synchronise
+ * just the users they involve. Commands drawing IBANs or card numbers also share an
+ * extra lane, so the identifier sequences are consumed in input order.
+ *
+ * <p>Lanes are resolved when a command is submitted, against the state left by the
+ * previous epoch. Commands are collected into an epoch until one of them cannot be
+ * resolved safely, for example because it names an IBAN or card that an earlier
+ * command of the same epoch may create, or because it reads every user. The epoch is
+ * then run to completion and such a command is executed on its own. Results are
+ * buffered per command and written in input order once the epoch is done.
+ */
+public final class ParallelReplayer {
+    private static final int MAX_EPOCH_SIZE = 4096;
+
+    private final CommandProcessor processor;
+    private final OutputSink output;
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool pool;
+
+    private final Object identifierLane = new Object();
+    private final List<Step> epoch = new ArrayList<>();
+    private final Map<Object, Step> laneTails = new IdentityHashMap<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private boolean accountsPending;
+    private boolean cardsPending;
+    private CountDownLatch remaining;
+
+    /**
+     * Constructs a ParallelReplayer running on the common fork-join pool.
+     *
+     * @param processor    the processor executing the commands
+     * @param output       the sink the processor writes to
+     * @param objectMapper the mapper used to buffer results
+     */
+    public ParallelReplayer(final CommandProcessor processor,
+                            final OutputSink output,
+                            final ObjectMapper objectMapper) {
+        this(processor, output, objectMapper, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ParallelReplayer.
+     *
+     * @param processor    the processor executing the commands
+     * @param output       the sink the processor writes to
+     * @param objectMapper the mapper used to buffer results
+     * @param pool         the pool running the commands
+     */
+    public ParallelReplayer(final CommandProcessor processor,
+                            final OutputSink output,
+                            final ObjectMapper objectMapper,
+                            final ForkJoinPool pool) {
+        this.processor = processor;
+        this.output = output;
+        this.objectMapper = objectMapper;
+        this.pool = pool;
+    }
+
+    /**
+     * Schedules a command. It may run right away, or once its epoch is complete.
+     *
+     * @param command the command to schedule
+     */
+    public void submit(final Command command) {
+        List<Object> lanes = resolveLanes(command);
+        if (lanes == null) {
+            runEpoch();
+            processor.processCommand(command);
+            return;
+        }
+
+        Step step = new Step(command, new BufferedOutputSink(objectMapper));
+        for (Object lane : lanes) {
+            Step previous = laneTails.put(lane, step);
+            if (previous != null && !previous.successors.contains(step)) {
+                previous.successors.add(step);
+                step.pending.incrementAndGet();
+            }
+        }
+        epoch.add(step);
+
+        if (epoch.size() >= MAX_EPOCH_SIZE) {
+            runEpoch();
+        }
+    }
+
+    /**
+     * Runs every scheduled command and writes the remaining results.
+     */
+    public void finish() {
+        runEpoch();
+    }
+
+    /**
+     * Runs the current epoch to completion and writes its results in input order.
+     */
+    private void runEpoch() {
+        if (epoch.isEmpty()) {
+            return;
+        }
+
+        remaining = new CountDownLatch(epoch.size());
+        for (Step step : epoch) {
+            if (step.pending.get() == 0) {
+                pool.execute(step);
+            }
+        }
+
+        try {
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying commands", e);
+        }
+
+        RuntimeException error = failure.getAndSet(null);
+        if (error != null) {
+            throw error;
+        }
+
+        for (Step step : epoch) {
+            step.buffer.drainTo(output);
+        }
+        epoch.clear();
+        laneTails.clear();
+        accountsPending = false;
+        cardsPending = false;
+    }
+
+    /**
+     * Determines the lanes a command belongs to.
+     *
+     * @param command the command
+     * @return the lanes of the command, or null if it has to run on its own
+     */
+    private List<Object> resolveLanes(final Command command) {
+        List<Object> lanes = new ArrayList<>(2);
+
+        switch (command) {
+            case PrintTransactions c -> addLane(lanes, processor.findUser(c.email()));
+            case DeleteAccount c -> addLane(lanes, processor.findUser(c.email()));
+            case DeleteCard c -> addLane(lanes, processor.findUser(c.email()));
+            case SetAlias c -> addLane(lanes, processor.findUser(c.email()));
+            case ChangeInterestRate c -> addLane(lanes, processor.findUser(c.email()));
+            case AddAccount c -> {
+                User user = processor.findUser(c.email());
+                if (user != null) {
+                    lanes.add(user);
+                    lanes.add(identifierLane);
+                    accountsPending = true;
+                }
+            }
+            case CreateCard c -> addCardIssuer(lanes, processor.findUser(c.email()));
+            case CreateOneTimeCard c -> addCardIssuer(lanes, processor.findUser(c.email()));
+            case PayOnline c -> {
+                User user = processor.findUser(c.email());
+                if (user != null) {
+                    lanes.add(user);
+                    if (mayRegenerateCard(user, c.cardNumber())) {
+                        lanes.add(identifierLane);
+                        cardsPending = true;
+                    }
+                }
+            }
+            case SendMoney c -> {
+                addLane(lanes, processor.findUser(c.email()));
+                return addAccountOwner(lanes, c.receiver()) ? lanes : null;
+            }
+            case AddFunds c -> {
+                return addAccountOwner(lanes, c.account()) ? lanes : null;
+            }
+            case SetMinimumBalance c -> {
+                return addAccountOwner(lanes, c.account()) ? lanes : null;
+            }
+            case Report c -> {
+                return addAccountOwner(lanes, c.account()) ? lanes : null;
+            }
+            case SpendingsReport c -> {
+                return addAccountOwner(lanes, c.account()) ? lanes : null;
+            }
+            case CheckCardStatus c -> {
+                return addCardOwner(lanes, c.cardNumber()) ? lanes : null;
+            }
+            case SplitPayment c -> {
+                if (c.accounts() == null) {
+                    return null;
+                }
+                for (String iban : c.accounts()) {
+                    if (!addAccountOwner(lanes, iban)) {
+                        return null;
+                    }
+                }
+            }
+            case PrintUsers c -> {
+                return null;
+            }
+            case UnknownCommand c -> {
+            }
+        }
+        return lanes;
+    }
+
+    /**
+     * Adds the lanes of a command issuing a card: the user's and the identifier lane.
+     *
+     * @param lanes the lanes of the command
+     * @param user  the user receiving the card, or null if there is none
+     */
+    private void addCardIssuer(final List<Object> lanes,
+                               final User user) {
+        if (user != null) {
+            lanes.add(user);
+            lanes.add(identifierLane);
+            cardsPending = true;
+        }
+    }
+
+    /**
+     * Tells whether paying with a card may regenerate a one-time card number.
+     *
+     * @param user       the paying user
+     * @param cardNumber the number of the card
+     * @return true if the payment may draw a new card number
+     */
+    private boolean mayRegenerateCard(final User user,
+                                      final String cardNumber) {
+        CardEntry entry = processor.findCardEntry(cardNumber);
+        if (entry == null) {
+            return cardsPending;
+        }
+        return entry.getOwner() == user && entry.getCard().isOneTime();
+    }
+
+    /**
+     * Adds the lane of the user owning an account.
+     *
+     * @param lanes the lanes of the command
+     * @param iban  the IBAN of the account
+     * @return false if the owner cannot be known before the epoch has run
+     */
+    private boolean addAccountOwner(final List<Object> lanes,
+                                    final String iban) {
+        User owner = processor.findUserByAccount(iban);
+        if (owner == null) {
+            return !accountsPending;
+        }
+        addLane(lanes, owner);
+        return true;
+    }
+
+    /**
+     * Adds the lane of the user owning a card.
+     *
+     * @param lanes      the lanes of the command
+     * @param cardNumber the number of the card
+     * @return false if the owner cannot be known before the epoch has run
+     */
+    private boolean addCardOwner(final List<Object> lanes,
+                                 final String cardNumber) {
+        CardEntry entry = processor.findCardEntry(cardNumber);
+        if (entry == null) {
+            return !cardsPending;
+        }
+        addLane(lanes, entry.getOwner());
+        return true;
+    }
+
+    /**
+     * Adds a user's lane, once.
+     *
+     * @param lanes the lanes of the command
+     * @param user  the user, or null if there is none
+     */
+    private static void addLane(final List<Object> lanes,
+                                final User user) {
+        if (user != null && !lanes.contains(user)) {
+            lanes.add(user);
+        }
+    }
+
+    /**
+     * One command of an epoch, with the commands waiting for it. Steps only live within
+     * one replay and are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private final class Step extends RecursiveAction {
+        private final Command command;
+        private final BufferedOutputSink buffer;
+        private final List<Step> successors = new ArrayList<>(2);
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * Constructs a Step.
+         *
+         * @param command the command to run
+         * @param buffer  the sink holding the results of the command
+         */
+        Step(final Command command,
+             final BufferedOutputSink buffer) {
+            this.command = command;
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                processor.processCommand(command, buffer);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (Step successor : successors) {
+                    if (successor.pending.decrementAndGet() == 0) {
+                        successor.fork();
+                    }
+                }
+                remaining.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.poo.main;
+
+import org.poo.checker.CheckerConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Use this to check that a run leaves nothing behind that changes the next one: every
+ * input is run twice with its journal and snapshot kept between the runs, and the two
+ * outputs must be byte-identical.
+ */
+public final class RerunTest {
+    /**
+     * for coding style
+     */
+    private RerunTest() {
+    }
+
+    /**
+     * @param args input files to check, or none to check every input
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        File[] inputs = Objects.requireNonNull(
+                new File(CheckerConstants.TESTS_PATH).listFiles());
+        Arrays.sort(inputs);
+        List<String> names = args.length > 0 ? Arrays.asList(args)
+                : Arrays.stream(inputs).map(File::getName).toList();
+
+        Path state = Files.createTempDirectory("rerun");
+        System.setProperty(Main.JOURNAL_DIR_PROPERTY, state.toString());
+        System.setProperty(Main.SNAPSHOT_DIR_PROPERTY, state.toString());
+        Files.createDirectories(Paths.get(CheckerConstants.RESULT_PATH));
+
+        int failed = 0;
+        try {
+            for (String name : names) {
+                Path first = state.resolve(name + ".first");
+                Path second = state.resolve(name + ".second");
+                Main.action(name, first.toString());
+                Main.action(name, second.toString());
+
+                boolean identical = Files.mismatch(first, second) == -1;
+                System.out.println(name + (identical ? " PASSED" : " FAILED"));
+                if (!identical) {
+                    failed++;
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(state)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        System.out.println(failed == 0 ? "Every rerun matched its first run"
+                : failed + " reruns differed from their first run");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.commands.Command;
+import org.poo.main.commands.CommandDecoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads an input file with Jackson's streaming API and feeds it to a
+ * {@link CommandProcessor} as it goes. Users and exchange rates are bound first,
+ * then commands are pulled from the parser one at a time and executed immediately,
+ * so memory does not grow with the number of commands.
+ */
+public final class StreamingInputReader {
+    private final ObjectMapper objectMapper;
+    private final CommandProcessor processor;
+    private final ParallelReplayer replayer;
+
+    private UserInput[] users;
+    private ExchangeInput[] exchangeRates;
+    private boolean initialized;
+    private int skipped;
+    private int toSkip;
+    private final List<Command> pendingCommands = new ArrayList<>();
+
+    /**
+     * Constructs a StreamingInputReader.
+     *
+     * @param objectMapper the mapper used to bind individual values
+     * @param processor    the processor receiving users, rates and commands
+     */
+    public StreamingInputReader(final ObjectMapper objectMapper,
+                                final CommandProcessor processor) {
+        this(objectMapper, processor, null);
+    }
+
+    /**
+     * Constructs a StreamingInputReader that hands commands to a parallel replayer.
+     *
+     * @param objectMapper the mapper used to bind individual values
+     * @param processor    the processor receiving users and rates
+     * @param replayer     the replayer executing the commands, or null to execute them
+     *                     sequentially on the processor
+     */
+    public StreamingInputReader(final ObjectMapper objectMapper,
+                                final CommandProcessor processor,
+                                final ParallelReplayer replayer) {
+        this.objectMapper = objectMapper;
+        this.processor = processor;
+        this.replayer = replayer;
+    }
+
+    /**
+     * Resumes the input on a processor recovered from a journal. The users and exchange
+     * rates of the input are ignored, and so are its first commands, whose effects and
+     * results the recovery already restored.
+     *
+     * @param commands the number of commands the processor has already processed
+     */
+    public void resumeAfter(final int commands) {
+        initialized = true;
+        toSkip = commands;
+    }
+
+    /**
+     * Reads the whole input file and processes every command in it.
+     *
+     * @param file the input file
+     * @throws IOException in case of exceptions to reading
+     */
+    public void read(final File file) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an object at the root of " + file);
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                switch (fieldName) {
+                    case "users":
+                        users = objectMapper.readValue(parser, UserInput[].class);
+                        break;
+                    case "exchangeRates":
+                        exchangeRates = objectMapper.readValue(parser, ExchangeInput[].class);
+                        break;
+                    case "commands":
+                        readCommands(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+
+        initializeIfNeeded();
+        for (Command command : pendingCommands) {
+            execute(command);
+        }
+        pendingCommands.clear();
+        if (replayer != null) {
+            replayer.finish();
+        }
+    }
+
+    /**
+     * Reads the command array one element at a time. Commands are decoded into their
+     * typed form and executed as soon as they are bound, unless the users or exchange
+     * rates come later in the file, in which case they are kept until the end of the
+     * input.
+     *
+     * @param parser the parser, positioned on the start of the command array
+     * @throws IOException in case of exceptions to reading
+     */
+    private void readCommands(final JsonParser parser) throws IOException {
+        boolean streaming = users != null && exchangeRates != null;
+        if (streaming) {
+            initializeIfNeeded();
+        }
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Command command = CommandDecoder.decode(
+                    objectMapper.readValue(parser, CommandInput.class));
+            if (streaming) {
+                execute(command);
+            } else {
+                pendingCommands.add(command);
+            }
+        }
+    }
+
+    /**
+     * Executes a command, or schedules it on the replayer if there is one. Commands
+     * already recovered are skipped.
+     *
+     * @param command the command
+     */
+    private void execute(final Command command) {
+        if (skipped < toSkip) {
+            skipped++;
+            return;
+        }
+        if (replayer != null) {
+            replayer.submit(command);
+        } else {
+            processor.processCommand(command);
+        }
+    }
+
+    /**
+     * Hands the users and exchange rates to the processor, once.
+     */
+    private void initializeIfNeeded() {
+        if (initialized) {
+            return;
+        }
+        processor.initializeUsersAndExchangeRates(
+                users == null ? List.of() : Arrays.asList(users),
+                exchangeRates == null ? List.of() : Arrays.asList(exchangeRates));
+        initialized = true;
+    }
+}
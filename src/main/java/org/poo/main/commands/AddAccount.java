@@ -0,0 +1,30 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * An addAccount command: opens an account for a user.
+ *
+ * @param email        the email of the user
+ * @param currency     the currency of the account
+ * @param accountType  the type of the account
+ * @param interestRate the interest rate of a savings account
+ * @param timestamp    the timestamp of the command
+ */
+public record AddAccount(String email, String currency, String accountType, double interestRate,
+                         int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.ADD_ACCOUNT;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.ADD_ACCOUNT.newInput(timestamp);
+        input.setEmail(email);
+        input.setCurrency(currency);
+        input.setAccountType(accountType);
+        input.setInterestRate(interestRate);
+        return input;
+    }
+}
@@ -0,0 +1,25 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * An addFunds command: deposits money into an account.
+ *
+ * @param account   the IBAN of the account
+ * @param amount    the amount to deposit
+ * @param timestamp the timestamp of the command
+ */
+public record AddFunds(String account, double amount, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.ADD_FUNDS;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.ADD_FUNDS.newInput(timestamp);
+        input.setAccount(account);
+        input.setAmount(amount);
+        return input;
+    }
+}
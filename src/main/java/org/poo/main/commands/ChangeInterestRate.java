@@ -0,0 +1,28 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A changeInterestRate command: changes the rate of a savings account.
+ *
+ * @param email        the email of the user
+ * @param account      the IBAN of the account
+ * @param interestRate the new interest rate
+ * @param timestamp    the timestamp of the command
+ */
+public record ChangeInterestRate(String email, String account, double interestRate, int timestamp)
+        implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.CHANGE_INTEREST_RATE;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.CHANGE_INTEREST_RATE.newInput(timestamp);
+        input.setEmail(email);
+        input.setAccount(account);
+        input.setInterestRate(interestRate);
+        return input;
+    }
+}
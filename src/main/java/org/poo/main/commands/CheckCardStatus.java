@@ -0,0 +1,23 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A checkCardStatus command: freezes a card whose account fell under its minimum balance.
+ *
+ * @param cardNumber the number of the card
+ * @param timestamp  the timestamp of the command
+ */
+public record CheckCardStatus(String cardNumber, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.CHECK_CARD_STATUS;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.CHECK_CARD_STATUS.newInput(timestamp);
+        input.setCardNumber(cardNumber);
+        return input;
+    }
+}
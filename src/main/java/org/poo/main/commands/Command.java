@@ -0,0 +1,44 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A command decoded from the input, holding only the fields its kind uses. Commands are
+ * built once, by {@link CommandDecoder}, when they are read.
+ */
+public sealed interface Command permits PrintUsers, PrintTransactions, AddAccount,
+        CreateCard, CreateOneTimeCard, AddFunds, DeleteAccount, DeleteCard,
+        SetMinimumBalance, PayOnline, SendMoney, SetAlias, CheckCardStatus,
+        ChangeInterestRate, SplitPayment, Report, SpendingsReport, UnknownCommand {
+
+    /**
+     * Gets the type of the command.
+     *
+     * @return the command type
+     */
+    CommandType type();
+
+    /**
+     * Gets the timestamp of the command.
+     *
+     * @return the timestamp
+     */
+    int timestamp();
+
+    /**
+     * Converts the command back to its input form, with the fields it holds set.
+     *
+     * @return the command input
+     */
+    CommandInput toInput();
+
+    /**
+     * Gets the email of the user issuing the command. Commands addressed by account or
+     * card, and those not tied to a user, have none.
+     *
+     * @return the email, or null
+     */
+    default String email() {
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * Turns raw command inputs into typed commands. The command name is resolved once,
+ * here, so handlers never compare strings and only see the fields their command uses.
+ */
+public final class CommandDecoder {
+    private CommandDecoder() {
+    }
+
+    /**
+     * Decodes a command input.
+     *
+     * @param input the command as read from the input
+     * @return the typed command; an {@link UnknownCommand} if its name is not understood
+     */
+    public static Command decode(final CommandInput input) {
+        int timestamp = input.getTimestamp();
+        return switch (CommandType.fromName(input.getCommand())) {
+            case PRINT_USERS -> new PrintUsers(timestamp);
+            case PRINT_TRANSACTIONS -> new PrintTransactions(input.getEmail(), timestamp);
+            case ADD_ACCOUNT -> new AddAccount(input.getEmail(), input.getCurrency(),
+                    input.getAccountType(), input.getInterestRate(), timestamp);
+            case CREATE_CARD -> new CreateCard(input.getEmail(), input.getAccount(), timestamp);
+            case CREATE_ONE_TIME_CARD -> new CreateOneTimeCard(input.getEmail(),
+                    input.getAccount(), timestamp);
+            case ADD_FUNDS -> new AddFunds(input.getAccount(), input.getAmount(), timestamp);
+            case DELETE_ACCOUNT -> new DeleteAccount(input.getEmail(), input.getAccount(),
+                    timestamp);
+            case DELETE_CARD -> new DeleteCard(input.getEmail(), input.getCardNumber(),
+                    timestamp);
+            case SET_MINIMUM_BALANCE -> new SetMinimumBalance(input.getAccount(),
+                    input.getAmount(), timestamp);
+            case PAY_ONLINE -> new PayOnline(input.getEmail(), input.getCardNumber(),
+                    input.getAmount(), input.getCurrency(), input.getCommerciant(), timestamp);
+            case SEND_MONEY -> new SendMoney(input.getEmail(), input.getAccount(),
+                    input.getReceiver(), input.getAmount(), input.getDescription(), timestamp);
+            case SET_ALIAS -> new SetAlias(input.getEmail(), input.getAlias(),
+                    input.getAccount(), timestamp);
+            case CHECK_CARD_STATUS -> new CheckCardStatus(input.getCardNumber(), timestamp);
+            case CHANGE_INTEREST_RATE -> new ChangeInterestRate(input.getEmail(),
+                    input.getAccount(), input.getInterestRate(), timestamp);
+            case SPLIT_PAYMENT -> new SplitPayment(input.getAccounts(), input.getAmount(),
+                    input.getCurrency(), timestamp);
+            case REPORT -> new Report(input.getAccount(), input.getStartTimestamp(),
+                    input.getEndTimestamp(), timestamp);
+            case SPENDINGS_REPORT -> new SpendingsReport(input.getAccount(),
+                    input.getStartTimestamp(), input.getEndTimestamp(), timestamp);
+            case UNKNOWN -> new UnknownCommand(input.getCommand(), timestamp);
+        };
+    }
+}
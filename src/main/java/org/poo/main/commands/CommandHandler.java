@@ -0,0 +1,16 @@
+package org.poo.main.commands;
+
+/**
+ * Runs commands of one type. Handlers are kept in a table indexed by
+ * {@link CommandType#ordinal()}.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    /**
+     * Runs a command.
+     *
+     * @param command the command, of the type the handler is registered for
+     * @return how the command ended
+     */
+    CommandOutcome handle(Command command);
+}
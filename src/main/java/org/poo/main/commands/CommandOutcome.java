@@ -0,0 +1,34 @@
+package org.poo.main.commands;
+
+/**
+ * How a command ended, as counted by the processor's metrics.
+ */
+public enum CommandOutcome {
+    /** The command did what it was asked to. */
+    OK("ok"),
+    /** A user, account or card it names does not exist. */
+    NOT_FOUND("notFound"),
+    /** An account could not cover the amount. */
+    INSUFFICIENT_FUNDS("insufficientFunds"),
+    /** The card was frozen, or got frozen by the command. */
+    FROZEN("frozen"),
+    /** The command was refused for another reason, such as a missing exchange rate. */
+    REJECTED("rejected"),
+    /** The command name is not understood. */
+    UNKNOWN_COMMAND("unknownCommand");
+
+    private final String label;
+
+    CommandOutcome(final String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the name the outcome is reported under.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,80 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The commands the engine understands, resolved once from the "command" field of the
+ * input. The ordinal of a type indexes the processor's handler table.
+ */
+public enum CommandType {
+    PRINT_USERS("printUsers"),
+    PRINT_TRANSACTIONS("printTransactions"),
+    ADD_ACCOUNT("addAccount"),
+    CREATE_CARD("createCard"),
+    CREATE_ONE_TIME_CARD("createOneTimeCard"),
+    ADD_FUNDS("addFunds"),
+    DELETE_ACCOUNT("deleteAccount"),
+    DELETE_CARD("deleteCard"),
+    SET_MINIMUM_BALANCE("setMinimumBalance"),
+    PAY_ONLINE("payOnline"),
+    SEND_MONEY("sendMoney"),
+    SET_ALIAS("setAlias"),
+    CHECK_CARD_STATUS("checkCardStatus"),
+    CHANGE_INTEREST_RATE("changeInterestRate"),
+    SPLIT_PAYMENT("splitPayment"),
+    REPORT("report"),
+    SPENDINGS_REPORT("spendingsReport"),
+    UNKNOWN(null);
+
+    private static final Map<String, CommandType> BY_NAME = new HashMap<>();
+
+    static {
+        for (CommandType type : values()) {
+            if (type.name != null) {
+                BY_NAME.put(type.name, type);
+            }
+        }
+    }
+
+    private final String name;
+
+    CommandType(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name the command has in the input and the output.
+     *
+     * @return the command name, or null for {@link #UNKNOWN}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Starts the input form of a command of this type, for re-encoding it.
+     *
+     * @param timestamp the timestamp of the command
+     * @return an input holding the command name and timestamp
+     */
+    CommandInput newInput(final int timestamp) {
+        CommandInput input = new CommandInput();
+        input.setCommand(name);
+        input.setTimestamp(timestamp);
+        return input;
+    }
+
+    /**
+     * Gets the type of a command name.
+     *
+     * @param name the command name
+     * @return the type, or {@link #UNKNOWN} if no command has that name
+     */
+    public static CommandType fromName(final String name) {
+        CommandType type = name == null ? null : BY_NAME.get(name);
+        return type != null ? type : UNKNOWN;
+    }
+}
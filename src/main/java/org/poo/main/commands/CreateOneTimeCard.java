@@ -0,0 +1,25 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A createOneTimeCard command: issues a one-time card for an account.
+ *
+ * @param email     the email of the user
+ * @param account   the IBAN of the account
+ * @param timestamp the timestamp of the command
+ */
+public record CreateOneTimeCard(String email, String account, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.CREATE_ONE_TIME_CARD;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.CREATE_ONE_TIME_CARD.newInput(timestamp);
+        input.setEmail(email);
+        input.setAccount(account);
+        return input;
+    }
+}
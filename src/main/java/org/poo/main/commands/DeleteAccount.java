@@ -0,0 +1,25 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A deleteAccount command: closes an empty account.
+ *
+ * @param email     the email of the user
+ * @param account   the IBAN of the account
+ * @param timestamp the timestamp of the command
+ */
+public record DeleteAccount(String email, String account, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.DELETE_ACCOUNT;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.DELETE_ACCOUNT.newInput(timestamp);
+        input.setEmail(email);
+        input.setAccount(account);
+        return input;
+    }
+}
@@ -0,0 +1,25 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A deleteCard command: destroys a card.
+ *
+ * @param email      the email of the user
+ * @param cardNumber the number of the card
+ * @param timestamp  the timestamp of the command
+ */
+public record DeleteCard(String email, String cardNumber, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.DELETE_CARD;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.DELETE_CARD.newInput(timestamp);
+        input.setEmail(email);
+        input.setCardNumber(cardNumber);
+        return input;
+    }
+}
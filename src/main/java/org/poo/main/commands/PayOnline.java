@@ -0,0 +1,32 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A payOnline command: pays a commerciant with a card.
+ *
+ * @param email       the email of the card holder
+ * @param cardNumber  the number of the card
+ * @param amount      the amount to pay
+ * @param currency    the currency of the amount
+ * @param commerciant the commerciant being paid
+ * @param timestamp   the timestamp of the command
+ */
+public record PayOnline(String email, String cardNumber, double amount, String currency,
+                        String commerciant, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.PAY_ONLINE;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.PAY_ONLINE.newInput(timestamp);
+        input.setEmail(email);
+        input.setCardNumber(cardNumber);
+        input.setAmount(amount);
+        input.setCurrency(currency);
+        input.setCommerciant(commerciant);
+        return input;
+    }
+}
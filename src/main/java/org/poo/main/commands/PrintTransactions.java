@@ -0,0 +1,23 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A printTransactions command: lists the history of a user.
+ *
+ * @param email     the email of the user
+ * @param timestamp the timestamp of the command
+ */
+public record PrintTransactions(String email, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.PRINT_TRANSACTIONS;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.PRINT_TRANSACTIONS.newInput(timestamp);
+        input.setEmail(email);
+        return input;
+    }
+}
@@ -0,0 +1,20 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A printUsers command: lists every user with their accounts and cards.
+ *
+ * @param timestamp the timestamp of the command
+ */
+public record PrintUsers(int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.PRINT_USERS;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        return CommandType.PRINT_USERS.newInput(timestamp);
+    }
+}
@@ -0,0 +1,28 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A report command: lists the transactions of an account within a time window.
+ *
+ * @param account        the IBAN of the account
+ * @param startTimestamp the start of the window
+ * @param endTimestamp   the end of the window
+ * @param timestamp      the timestamp of the command
+ */
+public record Report(String account, int startTimestamp, int endTimestamp, int timestamp)
+        implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.REPORT;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.REPORT.newInput(timestamp);
+        input.setAccount(account);
+        input.setStartTimestamp(startTimestamp);
+        input.setEndTimestamp(endTimestamp);
+        return input;
+    }
+}
@@ -0,0 +1,32 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A sendMoney command: transfers money between two accounts.
+ *
+ * @param email       the email of the sender
+ * @param account     the IBAN of the sending account
+ * @param receiver    the IBAN of the receiving account
+ * @param amount      the amount, in the sender's currency
+ * @param description the description of the transfer
+ * @param timestamp   the timestamp of the command
+ */
+public record SendMoney(String email, String account, String receiver, double amount,
+                        String description, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.SEND_MONEY;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.SEND_MONEY.newInput(timestamp);
+        input.setEmail(email);
+        input.setAccount(account);
+        input.setReceiver(receiver);
+        input.setAmount(amount);
+        input.setDescription(description);
+        return input;
+    }
+}
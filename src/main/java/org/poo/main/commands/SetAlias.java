@@ -0,0 +1,28 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A setAlias command: names one of a user's accounts.
+ *
+ * @param email     the email of the user
+ * @param alias     the alias
+ * @param account   the IBAN of the account
+ * @param timestamp the timestamp of the command
+ */
+public record SetAlias(String email, String alias, String account, int timestamp)
+        implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.SET_ALIAS;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.SET_ALIAS.newInput(timestamp);
+        input.setEmail(email);
+        input.setAlias(alias);
+        input.setAccount(account);
+        return input;
+    }
+}
@@ -0,0 +1,25 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A setMinimumBalance command: sets the balance under which cards are frozen.
+ *
+ * @param account   the IBAN of the account
+ * @param amount    the minimum balance
+ * @param timestamp the timestamp of the command
+ */
+public record SetMinimumBalance(String account, double amount, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.SET_MINIMUM_BALANCE;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.SET_MINIMUM_BALANCE.newInput(timestamp);
+        input.setAccount(account);
+        input.setAmount(amount);
+        return input;
+    }
+}
@@ -0,0 +1,29 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A spendingsReport command: lists the card payments of an account within a time
+ * window, with the total paid to each commerciant.
+ *
+ * @param account        the IBAN of the account
+ * @param startTimestamp the start of the window
+ * @param endTimestamp   the end of the window
+ * @param timestamp      the timestamp of the command
+ */
+public record SpendingsReport(String account, int startTimestamp, int endTimestamp, int timestamp)
+        implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.SPENDINGS_REPORT;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.SPENDINGS_REPORT.newInput(timestamp);
+        input.setAccount(account);
+        input.setStartTimestamp(startTimestamp);
+        input.setEndTimestamp(endTimestamp);
+        return input;
+    }
+}
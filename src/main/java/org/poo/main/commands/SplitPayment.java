@@ -0,0 +1,30 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+import java.util.List;
+
+/**
+ * A splitPayment command: divides a payment equally among several accounts.
+ *
+ * @param accounts  the IBANs of the paying accounts
+ * @param amount    the total amount
+ * @param currency  the currency of the amount
+ * @param timestamp the timestamp of the command
+ */
+public record SplitPayment(List<String> accounts, double amount, String currency, int timestamp)
+        implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.SPLIT_PAYMENT;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.SPLIT_PAYMENT.newInput(timestamp);
+        input.setAccounts(accounts);
+        input.setAmount(amount);
+        input.setCurrency(currency);
+        return input;
+    }
+}
@@ -0,0 +1,24 @@
+package org.poo.main.commands;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * A command whose name the engine does not understand. It is answered with an
+ * "Unknown command" status.
+ *
+ * @param name      the name the command was given, possibly null
+ * @param timestamp the timestamp of the command
+ */
+public record UnknownCommand(String name, int timestamp) implements Command {
+    @Override
+    public CommandType type() {
+        return CommandType.UNKNOWN;
+    }
+
+    @Override
+    public CommandInput toInput() {
+        CommandInput input = CommandType.UNKNOWN.newInput(timestamp);
+        input.setCommand(name);
+        return input;
+    }
+}
@@ -0,0 +1,70 @@
+package org.poo.main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.poo.main.commands.Command;
+import org.poo.main.commands.CommandOutcome;
+
+/**
+ * Flight recorder event spanning the execution of one command.
+ */
+@Name("org.poo.Command")
+@Label("Command")
+@Description("Execution of one bank command")
+@Category({"J. POO Morgan", "Commands"})
+@StackTrace(false)
+public final class CommandEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(CommandEvent.class);
+
+    @Label("Command")
+    private String command;
+
+    @Label("Command Timestamp")
+    @Description("Timestamp of the command in the input")
+    private int commandTimestamp;
+
+    @Label("User")
+    @Description("Email of the user issuing the command, if the command names one")
+    private String user;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Begins an event, unless no recording is taking events of this type, in which case
+     * nothing is allocated.
+     *
+     * @return the begun event, or null when it would not be recorded
+     */
+    public static CommandEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it, if it is being recorded.
+     *
+     * @param executed the command that ran
+     * @param result   how it ended
+     */
+    public void complete(final Command executed,
+                         final CommandOutcome result) {
+        end();
+        if (shouldCommit()) {
+            command = executed.type().getName();
+            commandTimestamp = executed.timestamp();
+            user = executed.email();
+            outcome = result.getLabel();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.poo.main.metrics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.commands.CommandType;
+import org.poo.main.output.JsonWritable;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per command type counters and latency histograms of one processor. Commands may be
+ * recorded from several threads at once.
+ */
+public final class CommandMetrics implements JsonWritable {
+    private static final CommandType[] TYPES = CommandType.values();
+    private static final CommandOutcome[] OUTCOMES = CommandOutcome.values();
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[TYPES.length];
+    private final AtomicLongArray outcomes = new AtomicLongArray(TYPES.length * OUTCOMES.length);
+
+    /**
+     * Creates empty metrics.
+     */
+    public CommandMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records one executed command.
+     *
+     * @param type    the type of the command
+     * @param outcome how it ended
+     * @param nanos   how long it took, in nanoseconds
+     */
+    public void record(final CommandType type,
+                       final CommandOutcome outcome,
+                       final long nanos) {
+        latencies[type.ordinal()].record(nanos);
+        outcomes.incrementAndGet(type.ordinal() * OUTCOMES.length + outcome.ordinal());
+    }
+
+    /**
+     * Gets the latency histogram of a command type.
+     *
+     * @param type the command type
+     * @return the histogram
+     */
+    public LatencyHistogram getLatency(final CommandType type) {
+        return latencies[type.ordinal()];
+    }
+
+    /**
+     * Gets how many commands of a type ended with an outcome.
+     *
+     * @param type    the command type
+     * @param outcome the outcome
+     * @return the count
+     */
+    public long getCount(final CommandType type,
+                         final CommandOutcome outcome) {
+        return outcomes.get(type.ordinal() * OUTCOMES.length + outcome.ordinal());
+    }
+
+    /**
+     * Writes the metrics of every command type that was executed, as an array of objects
+     * with the count, the count of each outcome that occurred and the latency
+     * percentiles in nanoseconds.
+     *
+     * @param generator the generator to write to
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (CommandType type : TYPES) {
+            LatencyHistogram latency = latencies[type.ordinal()];
+            if (latency.getCount() == 0) {
+                continue;
+            }
+
+            generator.writeStartObject();
+            generator.writeStringField("command",
+                    type.getName() != null ? type.getName() : "unknown");
+            generator.writeNumberField("count", latency.getCount());
+
+            generator.writeObjectFieldStart("outcomes");
+            for (CommandOutcome outcome : OUTCOMES) {
+                long count = getCount(type, outcome);
+                if (count != 0) {
+                    generator.writeNumberField(outcome.getLabel(), count);
+                }
+            }
+            generator.writeEndObject();
+
+            generator.writeObjectFieldStart("latencyNanos");
+            generator.writeNumberField("mean", Math.round(latency.getMean()));
+            generator.writeNumberField("p50", latency.getPercentile(P50));
+            generator.writeNumberField("p99", latency.getPercentile(P99));
+            generator.writeNumberField("p999", latency.getPercentile(P999));
+            generator.writeNumberField("max", latency.getMax());
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
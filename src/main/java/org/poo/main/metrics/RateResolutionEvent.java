@@ -0,0 +1,62 @@
+package org.poo.main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one exchange rate lookup. Rates are resolved when the
+ * conversion table is built, so the event records the length of the path the rate was
+ * resolved over rather than the time taken.
+ */
+@Name("org.poo.RateResolution")
+@Label("Exchange Rate Resolution")
+@Category({"J. POO Morgan", "Exchange Rates"})
+@StackTrace(false)
+public final class RateResolutionEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(RateResolutionEvent.class);
+
+    @Label("From")
+    private String from;
+
+    @Label("To")
+    private String to;
+
+    @Label("Path Length")
+    @Description("Number of declared rates multiplied to convert, 0 for the same currency")
+    private int pathLength;
+
+    @Label("Hit")
+    @Description("Whether the currencies are connected by declared rates")
+    private boolean hit;
+
+    /**
+     * Records a lookup, if a recording is taking events of this type. Nothing is
+     * allocated otherwise.
+     *
+     * @param fromCode the code of the source currency
+     * @param toCode   the code of the target currency
+     * @param length   the length of the conversion path
+     * @param found    whether a conversion path exists
+     */
+    public static void commitIfEnabled(final String fromCode,
+                                       final String toCode,
+                                       final int length,
+                                       final boolean found) {
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+        RateResolutionEvent event = new RateResolutionEvent();
+        if (event.shouldCommit()) {
+            event.from = fromCode;
+            event.to = toCode;
+            event.pathLength = length;
+            event.hit = found;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.poo.main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the writing of one account report.
+ */
+@Name("org.poo.Report")
+@Label("Report")
+@Description("Writing of a report or spendings report")
+@Category({"J. POO Morgan", "Reports"})
+@StackTrace(false)
+public final class ReportEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(ReportEvent.class);
+
+    @Label("Kind")
+    private String kind;
+
+    @Label("Account")
+    private String account;
+
+    @Label("Window")
+    @Description("Number of timestamps covered by the report")
+    private long window;
+
+    @Label("Transaction Rows")
+    private int transactionRows;
+
+    @Label("Commerciant Rows")
+    private int commerciantRows;
+
+    /**
+     * Begins an event, unless no recording is taking events of this type, in which case
+     * nothing is allocated.
+     *
+     * @return the begun event, or null when it would not be recorded
+     */
+    public static ReportEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        ReportEvent event = new ReportEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it, if it is being recorded.
+     *
+     * @param reportKind      the name of the report command
+     * @param iban            the account reported on
+     * @param startTimestamp  the first timestamp of the window
+     * @param endTimestamp    the last timestamp of the window
+     * @param transactions    the number of transactions written
+     * @param commerciants    the number of commerciant totals written
+     */
+    public void complete(final String reportKind,
+                         final String iban,
+                         final int startTimestamp,
+                         final int endTimestamp,
+                         final int transactions,
+                         final int commerciants) {
+        end();
+        if (shouldCommit()) {
+            kind = reportKind;
+            account = iban;
+            window = Math.max(0, (long) endTimestamp - startTimestamp + 1);
+            transactionRows = transactions;
+            commerciantRows = commerciants;
+            commit();
+        }
+    }
+}
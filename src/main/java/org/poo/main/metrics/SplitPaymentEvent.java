@@ -0,0 +1,69 @@
+package org.poo.main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.commands.SplitPayment;
+
+/**
+ * Flight recorder event spanning one split payment, from looking up the participants
+ * to recording the shared transaction.
+ */
+@Name("org.poo.SplitPayment")
+@Label("Split Payment")
+@Category({"J. POO Morgan", "Commands"})
+@StackTrace(false)
+public final class SplitPaymentEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(SplitPaymentEvent.class);
+
+    @Label("Participants")
+    @Description("Number of accounts sharing the payment")
+    private int participants;
+
+    @Label("Amount")
+    private double amount;
+
+    @Label("Currency")
+    private String currency;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Begins an event, unless no recording is taking events of this type, in which case
+     * nothing is allocated.
+     *
+     * @return the begun event, or null when it would not be recorded
+     */
+    public static SplitPaymentEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        SplitPaymentEvent event = new SplitPaymentEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it, if it is being recorded.
+     *
+     * @param payment the split payment that ran
+     * @param result  how it ended
+     */
+    public void complete(final SplitPayment payment,
+                         final CommandOutcome result) {
+        end();
+        if (shouldCommit()) {
+            participants = payment.accounts().size();
+            amount = payment.amount();
+            currency = payment.currency();
+            outcome = result.getLabel();
+            commit();
+        }
+    }
+}
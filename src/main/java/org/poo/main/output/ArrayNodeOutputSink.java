@@ -0,0 +1,63 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Collects results into an in-memory {@link ArrayNode}, for callers that need the whole
+ * output as a tree.
+ */
+public final class ArrayNodeOutputSink implements OutputSink {
+    private final ObjectMapper objectMapper;
+    private final ArrayNode output;
+
+    /**
+     * Constructs an ArrayNodeOutputSink.
+     *
+     * @param objectMapper the mapper used to turn directly written results into trees
+     * @param output       the array receiving the results
+     */
+    public ArrayNodeOutputSink(final ObjectMapper objectMapper,
+                               final ArrayNode output) {
+        this.objectMapper = objectMapper;
+        this.output = output;
+    }
+
+    /**
+     * Gets the array holding the results written so far.
+     *
+     * @return the result array
+     */
+    public ArrayNode getOutput() {
+        return output;
+    }
+
+    @Override
+    public void write(final JsonNode node) {
+        output.add(node);
+    }
+
+    @Override
+    public void write(final JsonWritable writable) {
+        try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+            writable.writeTo(buffer);
+            try (JsonParser parser = buffer.asParser()) {
+                JsonNode node = objectMapper.readTree(parser);
+                output.add(node);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the results stay available in the array
+    }
+}
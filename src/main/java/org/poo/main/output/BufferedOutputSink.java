@@ -0,0 +1,64 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Holds the results of a command until they can be written in order. Writable results
+ * are rendered into a {@link TokenBuffer} right away, so they capture the state at the
+ * time of the write and not at the time they are drained.
+ */
+public final class BufferedOutputSink implements OutputSink {
+    private final ObjectMapper mapper;
+    private final List<Consumer<OutputSink>> entries = new ArrayList<>(1);
+
+    /**
+     * Constructs a BufferedOutputSink.
+     *
+     * @param mapper the mapper used as codec for buffered tokens
+     */
+    public BufferedOutputSink(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void write(final JsonNode node) {
+        entries.add(sink -> sink.write(node));
+    }
+
+    @Override
+    public void write(final JsonWritable writable) {
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        try {
+            writable.writeTo(tokens);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.add(sink -> sink.write(tokens::serialize));
+    }
+
+    /**
+     * Writes every buffered result to another sink, in the order they were written here,
+     * and empties the buffer.
+     *
+     * @param target the sink receiving the results
+     */
+    public void drainTo(final OutputSink target) {
+        for (Consumer<OutputSink> entry : entries) {
+            entry.accept(target);
+        }
+        entries.clear();
+    }
+
+    @Override
+    public void close() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,58 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Counts the results written through it, forwarding them to another sink or
+ * discarding them.
+ */
+public final class CountingOutputSink implements OutputSink {
+    private final OutputSink delegate;
+    private int count;
+
+    /**
+     * Constructs a CountingOutputSink that discards the results.
+     */
+    public CountingOutputSink() {
+        this(null);
+    }
+
+    /**
+     * Constructs a CountingOutputSink.
+     *
+     * @param delegate the sink receiving the results, or null to discard them
+     */
+    public CountingOutputSink(final OutputSink delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the number of results written so far.
+     *
+     * @return the result count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(final JsonNode node) {
+        count++;
+        if (delegate != null) {
+            delegate.write(node);
+        }
+    }
+
+    @Override
+    public void write(final JsonWritable writable) {
+        count++;
+        if (delegate != null) {
+            delegate.write(writable);
+        }
+    }
+
+    @Override
+    public void close() {
+        // the delegate is owned by the caller
+    }
+}
@@ -0,0 +1,65 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes results straight to a file through a {@link JsonGenerator}, one array element
+ * at a time, so the output never has to be held in memory. Pretty mode produces the
+ * same bytes as serialising the whole array with the default pretty printer.
+ */
+public final class JsonGeneratorOutputSink implements OutputSink {
+    private final JsonGenerator generator;
+    private final ObjectWriter valueWriter;
+
+    /**
+     * Opens the output file and starts the result array.
+     *
+     * @param objectMapper the mapper used to serialise results
+     * @param file         the output file
+     * @param pretty       true for indented output, false for compact output
+     * @throws IOException in case of exceptions to writing
+     */
+    public JsonGeneratorOutputSink(final ObjectMapper objectMapper,
+                                   final File file,
+                                   final boolean pretty) throws IOException {
+        ObjectWriter generatorWriter = pretty
+                ? objectMapper.writerWithDefaultPrettyPrinter() : objectMapper.writer();
+        this.generator = generatorWriter.createGenerator(file, JsonEncoding.UTF8);
+        this.valueWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void write(final JsonNode node) {
+        try {
+            valueWriter.writeValue(generator, node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final JsonWritable writable) {
+        try {
+            writable.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
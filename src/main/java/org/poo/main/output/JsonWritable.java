@@ -0,0 +1,21 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * A result that knows how to write itself as a single JSON value, without building an
+ * intermediate tree first.
+ */
+@FunctionalInterface
+public interface JsonWritable {
+
+    /**
+     * Writes the value to a generator.
+     *
+     * @param generator the generator to write to
+     * @throws IOException in case of exceptions to writing
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,35 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for the results produced while processing commands. Every result is
+ * one element of the output array, handed to the sink as soon as it is produced.
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Appends a result to the output.
+     *
+     * @param node the result to append
+     */
+    void write(JsonNode node);
+
+    /**
+     * Appends a result that writes itself directly to the output.
+     *
+     * @param writable the result to append
+     */
+    void write(JsonWritable writable);
+
+    /**
+     * Finishes the output and releases any underlying resource.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,113 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Forwards the results of a command to another sink and keeps a compact JSON copy of
+ * them, so they can be stored and written out again later. The copy holds the results
+ * as consecutive root values. One recorder is reused from command to command.
+ */
+public final class RecordingOutputSink implements OutputSink {
+    private final ObjectMapper mapper;
+    private final ObjectWriter valueWriter;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final JsonGenerator generator;
+    private OutputSink delegate;
+    private int count;
+
+    /**
+     * Constructs a RecordingOutputSink.
+     *
+     * @param mapper the mapper used to serialise results
+     */
+    public RecordingOutputSink(final ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.valueWriter = mapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            this.generator = mapper.createGenerator(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Discards the results recorded so far and starts forwarding to a sink.
+     *
+     * @param target the sink receiving the results
+     */
+    public void start(final OutputSink target) {
+        flush();
+        bytes.reset();
+        delegate = target;
+        count = 0;
+    }
+
+    /**
+     * Gets the number of results recorded since the last {@link #start(OutputSink)}.
+     *
+     * @return the result count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the results recorded since the last {@link #start(OutputSink)}.
+     *
+     * @return the results, as consecutive compact JSON values in UTF-8
+     */
+    public byte[] toByteArray() {
+        flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void write(final JsonNode node) {
+        count++;
+        try {
+            valueWriter.writeValue(generator, node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delegate.write(node);
+    }
+
+    @Override
+    public void write(final JsonWritable writable) {
+        count++;
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        try {
+            writable.writeTo(tokens);
+            tokens.serialize(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delegate.write(tokens::serialize);
+    }
+
+    @Override
+    public void close() {
+        // the delegate is owned by the caller
+    }
+
+    /**
+     * Pushes the buffered output of the generator into the byte array.
+     */
+    private void flush() {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.poo.main.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.main.structures.Transaction;
+import org.poo.main.structures.TransactionKind;
+import org.poo.main.structures.User;
+
+import java.io.IOException;
+
+/**
+ * Writes transactions straight to a {@link JsonGenerator}, in the shapes used by
+ * printTransactions, report and spendingsReport. Which fields a transaction is written
+ * with is decided by the formats of its {@link TransactionKind}.
+ */
+public final class TransactionSerializer {
+    private TransactionSerializer() {
+        // utility class
+    }
+
+    /**
+     * Writes a transaction as listed by printTransactions.
+     *
+     * @param generator   the generator to write to
+     * @param transaction the transaction to write
+     * @param user        the user whose transactions are printed
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void writeHistoryEntry(final JsonGenerator generator,
+                                         final Transaction transaction,
+                                         final User user) throws IOException {
+        generator.writeStartObject();
+        switch (transaction.getKind().getHistoryFormat()) {
+            case HEADER:
+                writeHeader(generator, transaction);
+                break;
+
+            case CARD:
+                writeHeader(generator, transaction);
+                generator.writeStringField("card", transaction.getCardNumber());
+                generator.writeStringField("cardHolder", transaction.getEmail());
+                generator.writeStringField("account", transaction.getAccountNumber());
+                break;
+
+            case TRANSFER:
+                writeHeader(generator, transaction);
+                generator.writeStringField("senderIBAN", transaction.getSenderIBAN());
+                generator.writeStringField("receiverIBAN", transaction.getReceiverIBAN());
+                generator.writeStringField("amount", transaction.getAmount()
+                        + " " + transaction.getCurrency().getCode());
+                generator.writeStringField("transferType",
+                        user.getEmail().equals(transaction.getEmail()) ? "sent" : "received");
+                break;
+
+            case CARD_PAYMENT:
+                writeHeader(generator, transaction);
+                generator.writeNumberField("amount", transaction.getAmount());
+                generator.writeStringField("commerciant", transaction.getCommerciant());
+                break;
+
+            case SPLIT_PAYMENT:
+                writeHeader(generator, transaction);
+                generator.writeStringField("currency", transaction.getCurrency().getCode());
+                generator.writeNumberField("amount", transaction.getAmount());
+                generator.writeArrayFieldStart("involvedAccounts");
+                for (String iban : transaction.getInvolvedIBANs()) {
+                    generator.writeString(iban);
+                }
+                generator.writeEndArray();
+                break;
+
+            default:
+                break;
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a transaction as listed in an account report.
+     *
+     * @param generator   the generator to write to
+     * @param transaction the transaction to write
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void writeReportEntry(final JsonGenerator generator,
+                                        final Transaction transaction) throws IOException {
+        generator.writeStartObject();
+        writeHeader(generator, transaction);
+
+        switch (transaction.getKind().getReportFormat()) {
+            case CARD_DETAILS:
+                if (transaction.getCardNumber() != null) {
+                    generator.writeStringField("card", transaction.getCardNumber());
+                }
+                if (transaction.getEmail() != null) {
+                    generator.writeStringField("cardHolder", transaction.getEmail());
+                }
+                if (transaction.getAccountNumber() != null) {
+                    generator.writeStringField("account", transaction.getAccountNumber());
+                }
+                break;
+
+            case PAYMENT:
+                if (transaction.getAmount() > 0) {
+                    generator.writeNumberField("amount", transaction.getAmount());
+                }
+                if (transaction.getCommerciant() != null) {
+                    generator.writeStringField("commerciant", transaction.getCommerciant());
+                }
+                break;
+
+            case TRANSFER:
+                if (transaction.getSenderIBAN() != null) {
+                    generator.writeStringField("senderIBAN", transaction.getSenderIBAN());
+                }
+                if (transaction.getReceiverIBAN() != null) {
+                    generator.writeStringField("receiverIBAN", transaction.getReceiverIBAN());
+                }
+                if (transaction.getAmount() > 0) {
+                    generator.writeStringField("amount",
+                            String.format("%.1f", transaction.getAmount())
+                                    + " " + transaction.getCurrency().getCode());
+                }
+                String transferType = transaction.determineTransferType();
+                if (transferType != null) {
+                    generator.writeStringField("transferType", transferType);
+                }
+                break;
+
+            default:
+                break;
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a card payment as listed in a spendings report.
+     *
+     * @param generator   the generator to write to
+     * @param transaction the card payment to write
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void writeSpendingsEntry(final JsonGenerator generator,
+                                           final Transaction transaction) throws IOException {
+        generator.writeStartObject();
+        writeHeader(generator, transaction);
+        generator.writeNumberField("amount", transaction.getAmount());
+        generator.writeStringField("commerciant", transaction.getCommerciant());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the timestamp and description shared by every transaction shape.
+     *
+     * @param generator   the generator to write to
+     * @param transaction the transaction being written
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeHeader(final JsonGenerator generator,
+                                    final Transaction transaction) throws IOException {
+        generator.writeNumberField("timestamp", transaction.getTimestamp());
+        generator.writeStringField("description", transaction.getDescription());
+    }
+}
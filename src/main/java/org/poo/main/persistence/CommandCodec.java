@@ -0,0 +1,266 @@
+package org.poo.main.persistence;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.UserInput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of the engine's inputs for the journal. A command is written as a
+ * bit mask of the fields it sets, followed by those fields only, so the many unused
+ * fields of a {@link CommandInput} cost a single bit each.
+ */
+final class CommandCodec {
+    private static final int COMMAND = 1;
+    private static final int EMAIL = 1 << 1;
+    private static final int ACCOUNT = 1 << 2;
+    private static final int CURRENCY = 1 << 3;
+    private static final int AMOUNT = 1 << 4;
+    private static final int MIN_BALANCE = 1 << 5;
+    private static final int TARGET = 1 << 6;
+    private static final int DESCRIPTION = 1 << 7;
+    private static final int CARD_NUMBER = 1 << 8;
+    private static final int COMMERCIANT = 1 << 9;
+    private static final int TIMESTAMP = 1 << 10;
+    private static final int START_TIMESTAMP = 1 << 11;
+    private static final int END_TIMESTAMP = 1 << 12;
+    private static final int RECEIVER = 1 << 13;
+    private static final int ALIAS = 1 << 14;
+    private static final int ACCOUNT_TYPE = 1 << 15;
+    private static final int INTEREST_RATE = 1 << 16;
+    private static final int ACCOUNTS = 1 << 17;
+
+    private CommandCodec() {
+    }
+
+    /**
+     * Encodes a command.
+     *
+     * @param command the command
+     * @param out     the buffer receiving the encoding
+     */
+    static void encodeCommand(final CommandInput command,
+                              final GrowableBuffer out) {
+        int mask = 0;
+        mask |= command.getCommand() != null ? COMMAND : 0;
+        mask |= command.getEmail() != null ? EMAIL : 0;
+        mask |= command.getAccount() != null ? ACCOUNT : 0;
+        mask |= command.getCurrency() != null ? CURRENCY : 0;
+        mask |= isSet(command.getAmount()) ? AMOUNT : 0;
+        mask |= isSet(command.getMinBalance()) ? MIN_BALANCE : 0;
+        mask |= command.getTarget() != null ? TARGET : 0;
+        mask |= command.getDescription() != null ? DESCRIPTION : 0;
+        mask |= command.getCardNumber() != null ? CARD_NUMBER : 0;
+        mask |= command.getCommerciant() != null ? COMMERCIANT : 0;
+        mask |= command.getTimestamp() != 0 ? TIMESTAMP : 0;
+        mask |= command.getStartTimestamp() != 0 ? START_TIMESTAMP : 0;
+        mask |= command.getEndTimestamp() != 0 ? END_TIMESTAMP : 0;
+        mask |= command.getReceiver() != null ? RECEIVER : 0;
+        mask |= command.getAlias() != null ? ALIAS : 0;
+        mask |= command.getAccountType() != null ? ACCOUNT_TYPE : 0;
+        mask |= isSet(command.getInterestRate()) ? INTEREST_RATE : 0;
+        mask |= command.getAccounts() != null ? ACCOUNTS : 0;
+        out.putInt(mask);
+
+        if ((mask & COMMAND) != 0) {
+            out.putString(command.getCommand());
+        }
+        if ((mask & EMAIL) != 0) {
+            out.putString(command.getEmail());
+        }
+        if ((mask & ACCOUNT) != 0) {
+            out.putString(command.getAccount());
+        }
+        if ((mask & CURRENCY) != 0) {
+            out.putString(command.getCurrency());
+        }
+        if ((mask & AMOUNT) != 0) {
+            out.putDouble(command.getAmount());
+        }
+        if ((mask & MIN_BALANCE) != 0) {
+            out.putDouble(command.getMinBalance());
+        }
+        if ((mask & TARGET) != 0) {
+            out.putString(command.getTarget());
+        }
+        if ((mask & DESCRIPTION) != 0) {
+            out.putString(command.getDescription());
+        }
+        if ((mask & CARD_NUMBER) != 0) {
+            out.putString(command.getCardNumber());
+        }
+        if ((mask & COMMERCIANT) != 0) {
+            out.putString(command.getCommerciant());
+        }
+        if ((mask & TIMESTAMP) != 0) {
+            out.putInt(command.getTimestamp());
+        }
+        if ((mask & START_TIMESTAMP) != 0) {
+            out.putInt(command.getStartTimestamp());
+        }
+        if ((mask & END_TIMESTAMP) != 0) {
+            out.putInt(command.getEndTimestamp());
+        }
+        if ((mask & RECEIVER) != 0) {
+            out.putString(command.getReceiver());
+        }
+        if ((mask & ALIAS) != 0) {
+            out.putString(command.getAlias());
+        }
+        if ((mask & ACCOUNT_TYPE) != 0) {
+            out.putString(command.getAccountType());
+        }
+        if ((mask & INTEREST_RATE) != 0) {
+            out.putDouble(command.getInterestRate());
+        }
+        if ((mask & ACCOUNTS) != 0) {
+            out.putStringList(command.getAccounts());
+        }
+    }
+
+    /**
+     * Decodes a command written by {@link #encodeCommand(CommandInput, GrowableBuffer)}.
+     *
+     * @param in the encoded bytes
+     * @return the command
+     */
+    static CommandInput decodeCommand(final PayloadReader in) {
+        CommandInput command = new CommandInput();
+        int mask = in.getInt();
+
+        if ((mask & COMMAND) != 0) {
+            command.setCommand(in.getString());
+        }
+        if ((mask & EMAIL) != 0) {
+            command.setEmail(in.getString());
+        }
+        if ((mask & ACCOUNT) != 0) {
+            command.setAccount(in.getString());
+        }
+        if ((mask & CURRENCY) != 0) {
+            command.setCurrency(in.getString());
+        }
+        if ((mask & AMOUNT) != 0) {
+            command.setAmount(in.getDouble());
+        }
+        if ((mask & MIN_BALANCE) != 0) {
+            command.setMinBalance(in.getDouble());
+        }
+        if ((mask & TARGET) != 0) {
+            command.setTarget(in.getString());
+        }
+        if ((mask & DESCRIPTION) != 0) {
+            command.setDescription(in.getString());
+        }
+        if ((mask & CARD_NUMBER) != 0) {
+            command.setCardNumber(in.getString());
+        }
+        if ((mask & COMMERCIANT) != 0) {
+            command.setCommerciant(in.getString());
+        }
+        if ((mask & TIMESTAMP) != 0) {
+            command.setTimestamp(in.getInt());
+        }
+        if ((mask & START_TIMESTAMP) != 0) {
+            command.setStartTimestamp(in.getInt());
+        }
+        if ((mask & END_TIMESTAMP) != 0) {
+            command.setEndTimestamp(in.getInt());
+        }
+        if ((mask & RECEIVER) != 0) {
+            command.setReceiver(in.getString());
+        }
+        if ((mask & ALIAS) != 0) {
+            command.setAlias(in.getString());
+        }
+        if ((mask & ACCOUNT_TYPE) != 0) {
+            command.setAccountType(in.getString());
+        }
+        if ((mask & INTEREST_RATE) != 0) {
+            command.setInterestRate(in.getDouble());
+        }
+        if ((mask & ACCOUNTS) != 0) {
+            command.setAccounts(in.getStringList());
+        }
+        return command;
+    }
+
+    /**
+     * Encodes the users and exchange rates a run starts from.
+     *
+     * @param users the users
+     * @param rates the exchange rates
+     * @param out   the buffer receiving the encoding
+     */
+    static void encodeBootstrap(final List<UserInput> users,
+                                final List<ExchangeInput> rates,
+                                final GrowableBuffer out) {
+        out.putInt(users.size());
+        for (UserInput user : users) {
+            out.putString(user.getFirstName());
+            out.putString(user.getLastName());
+            out.putString(user.getEmail());
+        }
+
+        out.putInt(rates.size());
+        for (ExchangeInput rate : rates) {
+            out.putString(rate.getFrom());
+            out.putString(rate.getTo());
+            out.putDouble(rate.getRate());
+            out.putInt(rate.getTimestamp());
+        }
+    }
+
+    /**
+     * Tells whether a double field differs from its default, comparing raw bits so a
+     * negative zero is kept.
+     *
+     * @param value the field value
+     * @return true if the field has to be encoded
+     */
+    private static boolean isSet(final double value) {
+        return Double.doubleToRawLongBits(value) != 0;
+    }
+
+    /**
+     * Decodes the users written by {@link #encodeBootstrap}. Must be followed by
+     * {@link #decodeRates(PayloadReader)} on the same reader.
+     *
+     * @param in the encoded bytes
+     * @return the users
+     */
+    static List<UserInput> decodeUsers(final PayloadReader in) {
+        int count = in.getInt();
+        List<UserInput> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserInput user = new UserInput();
+            user.setFirstName(in.getString());
+            user.setLastName(in.getString());
+            user.setEmail(in.getString());
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Decodes the exchange rates written by {@link #encodeBootstrap}.
+     *
+     * @param in the encoded bytes, positioned after the users
+     * @return the exchange rates
+     */
+    static List<ExchangeInput> decodeRates(final PayloadReader in) {
+        int count = in.getInt();
+        List<ExchangeInput> rates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ExchangeInput rate = new ExchangeInput();
+            rate.setFrom(in.getString());
+            rate.setTo(in.getString());
+            rate.setRate(in.getDouble());
+            rate.setTimestamp(in.getInt());
+            rates.add(rate);
+        }
+        return rates;
+    }
+}
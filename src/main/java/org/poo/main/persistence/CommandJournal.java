@@ -0,0 +1,258 @@
+package org.poo.main.persistence;
+
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.commands.Command;
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.output.RecordingOutputSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of the run of an input, kept so that a run cut short by a
+ * crash can be recovered.
+ *
+ * <p>The file starts with a magic number, a version and the id of the run that created it,
+ * which snapshots of the run record as well. It is followed by records laid out as
+ * {@code [int length][byte kind][payload][int crc32]}, where the length covers the kind
+ * and the payload and the checksum covers the same bytes. The first record holds the
+ * users and exchange rates. Every following one holds a command in input order: its
+ * sequence number, its outcome, the results it wrote and the command itself. The
+ * results let a recovery write the output of the run again, and the outcome lets a
+ * replay check that it reaches the same state. A journal holding only its header
+ * belongs to a run that finished, see {@link #reset()}.
+ *
+ * <p>Records are copied into a memory-mapped region of the file that is remapped as it
+ * fills up. The length of a record is written last, and unused space is zero-filled, so
+ * a record torn by a crash reads as the end of the journal. Regions are forced to disk
+ * every {@value #GROUP_COMMIT_RECORDS} records, on {@link #commit()} and on close, which
+ * also cuts the file back to the end of the last record.
+ */
+public final class CommandJournal implements Closeable {
+    static final int MAGIC = 0x504F4A4C;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+    static final byte BOOTSTRAP = 1;
+    static final byte COMMAND = 2;
+    static final int REGION_SIZE = 1 << 22;
+
+    private static final int GROUP_COMMIT_RECORDS = 256;
+    private static final int INITIAL_RECORD_CAPACITY = 256;
+
+    private final FileChannel channel;
+    private final long runId;
+    private final GrowableBuffer record = new GrowableBuffer(INITIAL_RECORD_CAPACITY);
+    private final CRC32 checksum = new CRC32();
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int uncommitted;
+
+    /**
+     * Constructs a CommandJournal appending at the given offset.
+     *
+     * @param channel  the journal file, open for reading and writing
+     * @param runId    the id of the run the journal belongs to
+     * @param position the offset of the next record
+     * @throws IOException in case of exceptions to mapping the file
+     */
+    private CommandJournal(final FileChannel channel,
+                           final long runId,
+                           final long position) throws IOException {
+        this.channel = channel;
+        this.runId = runId;
+        mapRegion(position, REGION_SIZE);
+    }
+
+    /**
+     * Creates an empty journal for a new run, replacing any existing file.
+     *
+     * @param path the journal file
+     * @return the journal
+     * @throws IOException in case of exceptions to writing
+     */
+    public static CommandJournal create(final Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        long runId;
+        do {
+            runId = ThreadLocalRandom.current().nextLong();
+        } while (runId == 0);
+        CommandJournal journal = new CommandJournal(channel, runId, 0);
+        journal.region.putInt(MAGIC).putInt(VERSION).putLong(runId);
+        journal.commit();
+        return journal;
+    }
+
+    /**
+     * Opens a journal to append to it, continuing its run, or creates it if it does not
+     * exist. Anything after the last intact record, such as a record torn by a crash, is
+     * discarded.
+     *
+     * @param path the journal file
+     * @return the journal
+     * @throws IOException in case of exceptions to reading or writing
+     */
+    public static CommandJournal open(final Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return create(path);
+        }
+
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            JournalReader reader = new JournalReader(channel);
+            long end = reader.skipToEnd();
+            channel.truncate(end);
+            return new CommandJournal(channel, reader.runId(), end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the id of the run the journal belongs to. It is never 0.
+     *
+     * @return the run id
+     */
+    public long getRunId() {
+        return runId;
+    }
+
+    /**
+     * Records the users and exchange rates the bank starts from.
+     *
+     * @param users the users
+     * @param rates the exchange rates
+     */
+    public synchronized void appendBootstrap(final List<UserInput> users,
+                                             final List<ExchangeInput> rates) {
+        record.clear();
+        CommandCodec.encodeBootstrap(users, rates, record);
+        append(BOOTSTRAP);
+    }
+
+    /**
+     * Records an executed command, in its input form.
+     *
+     * @param sequence the position of the command among the processed commands
+     * @param command  the command
+     * @param outcome  how the command ended
+     * @param results  the results the command wrote
+     */
+    public synchronized void appendCommand(final int sequence,
+                                           final Command command,
+                                           final CommandOutcome outcome,
+                                           final RecordingOutputSink results) {
+        byte[] written = results.toByteArray();
+        record.clear();
+        record.putInt(sequence);
+        record.putByte(outcome.ordinal());
+        record.putInt(results.getCount());
+        record.putInt(written.length);
+        record.putBytes(written);
+        CommandCodec.encodeCommand(command.toInput(), record);
+        append(COMMAND);
+    }
+
+    /**
+     * Forces every record appended so far to disk.
+     */
+    public synchronized void commit() {
+        region.force();
+        uncommitted = 0;
+    }
+
+    /**
+     * Discards every record once the run has finished, leaving only the header. The next
+     * run of the input then starts afresh instead of recovering this one.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    public synchronized void reset() throws IOException {
+        commit();
+        channel.truncate(HEADER_SIZE);
+        mapRegion(HEADER_SIZE, REGION_SIZE);
+        channel.force(true);
+    }
+
+    /**
+     * Commits the journal and truncates the file to its last record, dropping the unused
+     * part of the mapped region.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        commit();
+        channel.truncate(regionStart + region.position());
+        channel.close();
+    }
+
+    /**
+     * Copies the encoded record into the mapped region.
+     *
+     * @param kind the kind of the record
+     */
+    private void append(final byte kind) {
+        int length = Byte.BYTES + record.length();
+        ensureRoom(length + RECORD_OVERHEAD);
+
+        checksum.reset();
+        checksum.update(kind);
+        checksum.update(record.contents());
+
+        int start = region.position();
+        region.position(start + Integer.BYTES);
+        region.put(kind);
+        region.put(record.contents());
+        region.putInt((int) checksum.getValue());
+        region.putInt(start, length);
+
+        if (++uncommitted >= GROUP_COMMIT_RECORDS) {
+            commit();
+        }
+    }
+
+    /**
+     * Maps a new region when the current one cannot hold the next record.
+     *
+     * @param bytes the size of the next record
+     */
+    private void ensureRoom(final int bytes) {
+        if (region.remaining() >= bytes) {
+            return;
+        }
+        region.force();
+        try {
+            mapRegion(regionStart + region.position(), Math.max(REGION_SIZE, bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps a writable region of the file, growing the file if needed.
+     *
+     * @param start the offset of the region
+     * @param size  the size of the region
+     * @throws IOException in case of exceptions to mapping the file
+     */
+    private void mapRegion(final long start,
+                           final int size) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+        regionStart = start;
+    }
+}
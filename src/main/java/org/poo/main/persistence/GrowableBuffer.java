@@ -0,0 +1,169 @@
+package org.poo.main.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Heap byte buffer that doubles its capacity as values are appended. Records are
+ * encoded here first, so their length and checksum are known before they are copied
+ * to the file.
+ */
+final class GrowableBuffer {
+    private static final int NULL_LENGTH = -1;
+    private static final int VARINT_SHIFT = 7;
+    private static final long VARINT_PAYLOAD = 0x7FL;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a GrowableBuffer.
+     *
+     * @param initialCapacity the initial capacity in bytes
+     */
+    GrowableBuffer(final int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    /**
+     * Discards the encoded bytes, keeping the capacity.
+     */
+    void clear() {
+        buffer.clear();
+    }
+
+    /**
+     * Gets the number of encoded bytes.
+     *
+     * @return the encoded length
+     */
+    int length() {
+        return buffer.position();
+    }
+
+    /**
+     * Gets a read-only view of the encoded bytes.
+     *
+     * @return a buffer positioned on the first encoded byte
+     */
+    ByteBuffer contents() {
+        return buffer.asReadOnlyBuffer().flip();
+    }
+
+    /**
+     * Appends a byte.
+     *
+     * @param value the value
+     */
+    void putByte(final int value) {
+        ensure(Byte.BYTES).put((byte) value);
+    }
+
+    /**
+     * Appends a 32-bit integer.
+     *
+     * @param value the value
+     */
+    void putInt(final int value) {
+        ensure(Integer.BYTES).putInt(value);
+    }
+
+    /**
+     * Appends a 64-bit integer.
+     *
+     * @param value the value
+     */
+    void putLong(final long value) {
+        ensure(Long.BYTES).putLong(value);
+    }
+
+    /**
+     * Appends a double by its raw bits, so it is restored exactly.
+     *
+     * @param value the value
+     */
+    void putDouble(final double value) {
+        ensure(Double.BYTES).putDouble(value);
+    }
+
+    /**
+     * Appends raw bytes.
+     *
+     * @param bytes the bytes
+     */
+    void putBytes(final byte[] bytes) {
+        ensure(bytes.length).put(bytes);
+    }
+
+    /**
+     * Appends an unsigned variable-length integer, seven bits per byte, low bits first.
+     * Small values take a single byte.
+     *
+     * @param value the value, treated as unsigned
+     */
+    void putVarLong(final long value) {
+        long remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD) != 0) {
+            putByte((int) (remaining & VARINT_PAYLOAD) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_SHIFT;
+        }
+        putByte((int) remaining);
+    }
+
+    /**
+     * Appends an unsigned variable-length 32-bit integer.
+     *
+     * @param value the value, treated as unsigned
+     */
+    void putVarInt(final int value) {
+        putVarLong(Integer.toUnsignedLong(value));
+    }
+
+    /**
+     * Appends a length-prefixed UTF-8 string. Null is encoded as a negative length.
+     *
+     * @param value the value, possibly null
+     */
+    void putString(final String value) {
+        if (value == null) {
+            putInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes);
+    }
+
+    /**
+     * Appends a count-prefixed list of strings.
+     *
+     * @param values the values, possibly null
+     */
+    void putStringList(final List<String> values) {
+        if (values == null) {
+            putInt(NULL_LENGTH);
+            return;
+        }
+        putInt(values.size());
+        for (String value : values) {
+            putString(value);
+        }
+    }
+
+    /**
+     * Makes room for more bytes, growing the buffer if needed.
+     *
+     * @param bytes the number of bytes about to be written
+     * @return the underlying buffer
+     */
+    private ByteBuffer ensure(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,146 @@
+package org.poo.main.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Iterates over the intact records of a {@link CommandJournal} file through read-only
+ * memory-mapped windows. Iteration stops at the first empty, truncated or corrupted
+ * record, which is where the journal logically ends.
+ */
+final class JournalReader {
+    private final FileChannel channel;
+    private final long size;
+    private final long runId;
+    private final CRC32 checksum = new CRC32();
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position = CommandJournal.HEADER_SIZE;
+    private byte kind;
+    private ByteBuffer payload;
+
+    /**
+     * Constructs a JournalReader and checks the journal header.
+     *
+     * @param channel the journal file, open for reading
+     * @throws IOException if the file is not a journal, or in case of exceptions to reading
+     */
+    JournalReader(final FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        if (size < CommandJournal.HEADER_SIZE) {
+            throw new IOException("Journal header is missing");
+        }
+
+        ByteBuffer header = map(0, CommandJournal.HEADER_SIZE);
+        if (header.getInt(0) != CommandJournal.MAGIC) {
+            throw new IOException("Not a command journal");
+        }
+        if (header.getInt(Integer.BYTES) != CommandJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + header.getInt(Integer.BYTES));
+        }
+        runId = header.getLong(2 * Integer.BYTES);
+    }
+
+    /**
+     * Gets the id of the run the journal belongs to.
+     *
+     * @return the run id
+     */
+    long runId() {
+        return runId;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return true if there is an intact record, false at the end of the journal
+     * @throws IOException in case of exceptions to reading
+     */
+    boolean next() throws IOException {
+        if (position + Integer.BYTES > size) {
+            return false;
+        }
+        int length = map(position, Integer.BYTES).getInt(0);
+        if (length <= 0 || position + CommandJournal.RECORD_OVERHEAD + length > size) {
+            return false;
+        }
+
+        ByteBuffer body = map(position + Integer.BYTES, length + Integer.BYTES);
+        checksum.reset();
+        checksum.update(body.slice(0, length));
+        if ((int) checksum.getValue() != body.getInt(length)) {
+            return false;
+        }
+
+        kind = body.get(0);
+        payload = body.slice(Byte.BYTES, length - Byte.BYTES);
+        position += CommandJournal.RECORD_OVERHEAD + length;
+        return true;
+    }
+
+    /**
+     * Skips every remaining intact record.
+     *
+     * @return the logical end of the journal
+     * @throws IOException in case of exceptions to reading
+     */
+    long skipToEnd() throws IOException {
+        boolean intact = next();
+        while (intact) {
+            intact = next();
+        }
+        return position;
+    }
+
+    /**
+     * Gets the kind of the current record.
+     *
+     * @return the record kind
+     */
+    byte kind() {
+        return kind;
+    }
+
+    /**
+     * Gets the payload of the current record.
+     *
+     * @return a buffer holding exactly the payload
+     */
+    ByteBuffer payload() {
+        return payload;
+    }
+
+    /**
+     * Gets the offset just after the last intact record read so far.
+     *
+     * @return the logical end of the journal
+     */
+    long end() {
+        return position;
+    }
+
+    /**
+     * Returns a view of a byte range of the file, remapping the window if the range is
+     * not already mapped.
+     *
+     * @param start  the offset of the range
+     * @param length the length of the range
+     * @return a buffer holding exactly the range
+     * @throws IOException in case of exceptions to mapping the file
+     */
+    private ByteBuffer map(final long start,
+                           final int length) throws IOException {
+        if (window == null || start < windowStart
+                || start + length > windowStart + window.capacity()) {
+            long windowSize = Math.min(Math.max(CommandJournal.REGION_SIZE, length),
+                    size - start);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, windowSize);
+            windowStart = start;
+        }
+        return window.slice((int) (start - windowStart), length);
+    }
+}
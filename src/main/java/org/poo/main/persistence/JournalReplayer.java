@@ -0,0 +1,157 @@
+package org.poo.main.persistence;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.poo.main.CommandProcessor;
+import org.poo.main.commands.Command;
+import org.poo.main.commands.CommandDecoder;
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.output.CountingOutputSink;
+import org.poo.main.output.OutputSink;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Recovers the run of an input from its {@link CommandJournal}. Records are decoded
+ * straight from the mapped file and re-executed on the processor, which is much cheaper
+ * than parsing the original JSON input, and the results of every journaled command are
+ * written out again, so the output of the recovered run is complete.
+ */
+public final class JournalReplayer {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final CommandOutcome[] OUTCOMES = CommandOutcome.values();
+
+    private JournalReplayer() {
+    }
+
+    /**
+     * Finds the run a journal was left behind by, if it did not finish. A finished run
+     * {@linkplain CommandJournal#reset() resets} its journal, so only the journal of a
+     * run cut short holds records.
+     *
+     * @param path the journal file
+     * @return the id of the unfinished run, or 0 if there is no journal or its run
+     *         finished
+     * @throws IOException in case of exceptions to reading
+     */
+    public static long unfinishedRun(final Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) <= CommandJournal.HEADER_SIZE) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            JournalReader reader = new JournalReader(channel);
+            return reader.next() ? reader.runId() : 0;
+        }
+    }
+
+    /**
+     * Replays a journal into a processor and writes the results of its commands to an
+     * output. The processor is either fresh or restored from a snapshot written during
+     * the journal's run; the bootstrap record and the commands the snapshot already reflects
+     * are then not executed again, only their results are written. A record torn by a
+     * crash ends the replay.
+     *
+     * @param path      the journal file
+     * @param processor the processor receiving the users, rates and commands
+     * @param output    the sink receiving the results of the journaled commands
+     * @return the number of commands in the journal
+     * @throws IOException if the journal is not in input order or does not reach the
+     *                     snapshot, or in case of exceptions to reading
+     * @throws IllegalStateException if a command does not reach the recorded outcome
+     */
+    public static int replay(final Path path,
+                             final CommandProcessor processor,
+                             final OutputSink output) throws IOException {
+        boolean restored = processor.isInitialized();
+        int reflected = processor.getProcessedCommands();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            JournalReader reader = new JournalReader(channel);
+            int sequence = 0;
+            while (reader.next()) {
+                PayloadReader in = new PayloadReader(reader.payload());
+                switch (reader.kind()) {
+                    case CommandJournal.BOOTSTRAP:
+                        if (!restored) {
+                            processor.initializeUsersAndExchangeRates(
+                                    CommandCodec.decodeUsers(in),
+                                    CommandCodec.decodeRates(in));
+                        }
+                        break;
+                    case CommandJournal.COMMAND:
+                        replayCommand(in, sequence, sequence < reflected, processor, output);
+                        sequence++;
+                        break;
+                    default:
+                        throw new IOException("Unknown journal record kind " + reader.kind());
+                }
+            }
+            if (sequence < reflected) {
+                throw new IOException("The snapshot reflects " + reflected
+                        + " commands but the journal only holds " + sequence);
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Writes the results of one journaled command and, unless its effects are already
+     * in the processor, re-executes it and checks it reaches the recorded outcome.
+     *
+     * @param in        the payload of the record
+     * @param expected  the sequence number the record must have
+     * @param reflected whether the processor already reflects the command
+     * @param processor the processor executing the command
+     * @param output    the sink receiving the results
+     * @throws IOException if the record is out of order, or in case of exceptions to
+     *                     reading its results
+     */
+    private static void replayCommand(final PayloadReader in,
+                                      final int expected,
+                                      final boolean reflected,
+                                      final CommandProcessor processor,
+                                      final OutputSink output) throws IOException {
+        int sequence = in.getInt();
+        CommandOutcome outcome = OUTCOMES[in.getByte()];
+        int resultCount = in.getInt();
+        byte[] results = in.getBytes(in.getInt());
+        Command command = CommandDecoder.decode(CommandCodec.decodeCommand(in));
+        if (sequence != expected) {
+            throw new IOException("Journal record " + sequence + " found where record "
+                    + expected + " was expected");
+        }
+
+        if (reflected) {
+            writeResults(results, output);
+            return;
+        }
+        CountingOutputSink counted = new CountingOutputSink(output);
+        CommandOutcome replayed = processor.processCommand(command, counted);
+        if (replayed != outcome || counted.getCount() != resultCount) {
+            throw new IllegalStateException("Replay diverged at " + command.type().getName()
+                    + " with timestamp " + command.timestamp() + ": expected " + outcome
+                    + " with " + resultCount + " results, got " + replayed + " with "
+                    + counted.getCount());
+        }
+    }
+
+    /**
+     * Writes recorded results to an output, one result per JSON value.
+     *
+     * @param results the results, as consecutive JSON values
+     * @param output  the sink receiving the results
+     * @throws IOException in case of exceptions to parsing the results
+     */
+    private static void writeResults(final byte[] results,
+                                     final OutputSink output) throws IOException {
+        try (JsonParser parser = JSON.createParser(results)) {
+            while (parser.nextToken() != null) {
+                output.write(TokenBuffer.asCopyOfValue(parser)::serialize);
+            }
+        }
+    }
+}
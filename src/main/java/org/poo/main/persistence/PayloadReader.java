@@ -0,0 +1,139 @@
+package org.poo.main.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes values written by a {@link GrowableBuffer}.
+ */
+final class PayloadReader {
+    private static final int VARINT_SHIFT = 7;
+    private static final int VARINT_PAYLOAD = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a PayloadReader.
+     *
+     * @param buffer the encoded bytes, positioned on the first value
+     */
+    PayloadReader(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return the value
+     */
+    int getByte() {
+        return buffer.get();
+    }
+
+    /**
+     * Reads a 32-bit integer.
+     *
+     * @return the value
+     */
+    int getInt() {
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a 64-bit integer.
+     *
+     * @return the value
+     */
+    long getLong() {
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return the value
+     */
+    double getDouble() {
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads raw bytes.
+     *
+     * @param length the number of bytes
+     * @return the bytes
+     */
+    byte[] getBytes(final int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @return the value
+     */
+    long getVarLong() {
+        long value = 0;
+        int shift = 0;
+        int current;
+        do {
+            current = buffer.get();
+            value |= (long) (current & VARINT_PAYLOAD) << shift;
+            shift += VARINT_SHIFT;
+        } while ((current & VARINT_CONTINUATION) != 0);
+        return value;
+    }
+
+    /**
+     * Reads an unsigned variable-length 32-bit integer.
+     *
+     * @return the value
+     */
+    int getVarInt() {
+        return (int) getVarLong();
+    }
+
+    /**
+     * Tells whether every byte has been read.
+     *
+     * @return true if nothing is left
+     */
+    boolean isExhausted() {
+        return !buffer.hasRemaining();
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @return the value, possibly null
+     */
+    String getString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(getBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a count-prefixed list of strings.
+     *
+     * @return the values, possibly null
+     */
+    List<String> getStringList() {
+        int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,291 @@
+package org.poo.main.persistence;
+
+import org.poo.main.CommandProcessor;
+import org.poo.main.structures.Account;
+import org.poo.main.structures.BankContext;
+import org.poo.main.structures.Card;
+import org.poo.main.structures.CurrencyRegistry;
+import org.poo.main.structures.ExchangeRate;
+import org.poo.main.structures.Transaction;
+import org.poo.main.structures.TransactionKind;
+import org.poo.main.structures.User;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Restores a bank from a file written by {@link SnapshotWriter}. The file is read with a
+ * single sequential read into one buffer and decoded front to back, so loading time
+ * depends on the size of the state and not on how many commands produced it.
+ */
+public final class SnapshotLoader {
+    private final PayloadReader in;
+    private final BankContext context;
+    private final CurrencyRegistry currencies;
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Constructs a SnapshotLoader.
+     *
+     * @param in      the snapshot contents, without the checksum
+     * @param context the context the restored users belong to
+     */
+    private SnapshotLoader(final PayloadReader in,
+                           final BankContext context) {
+        this.in = in;
+        this.context = context;
+        this.currencies = context.getCurrencies();
+    }
+
+    /**
+     * Loads a snapshot into a processor that has not processed anything yet.
+     *
+     * @param path      the snapshot file
+     * @param processor the processor receiving the restored bank
+     * @throws IOException if the file is not an intact snapshot, or in case of exceptions
+     *                     to reading
+     */
+    public static void load(final Path path,
+                            final CommandProcessor processor) throws IOException {
+        PayloadReader in = open(path);
+        in.getLong();
+        new SnapshotLoader(in, processor.getContext()).decode(processor);
+    }
+
+    /**
+     * Loads a snapshot into a processor that has not processed anything yet, if it was
+     * taken during the given journaled run.
+     *
+     * @param path      the snapshot file
+     * @param processor the processor receiving the restored bank
+     * @param runId     the {@linkplain CommandJournal#getRunId() id} of the run
+     * @return true if the snapshot was loaded, false if it belongs to another run
+     * @throws IOException if the file is not an intact snapshot, or in case of exceptions
+     *                     to reading
+     */
+    public static boolean loadFromRun(final Path path,
+                                      final CommandProcessor processor,
+                                      final long runId) throws IOException {
+        PayloadReader in = open(path);
+        if (in.getLong() != runId) {
+            return false;
+        }
+        new SnapshotLoader(in, processor.getContext()).decode(processor);
+        return true;
+    }
+
+    /**
+     * Reads a snapshot file and checks its checksum, magic number and version.
+     *
+     * @param path the snapshot file
+     * @return a reader positioned on the run id that follows the version
+     * @throws IOException if the file is not an intact snapshot, or in case of exceptions
+     *                     to reading
+     */
+    private static PayloadReader open(final Path path) throws IOException {
+        ByteBuffer contents;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            contents = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (contents.hasRemaining()) {
+                if (channel.read(contents) < 0) {
+                    throw new EOFException("Snapshot ended early: " + path);
+                }
+            }
+        }
+        contents.flip();
+
+        if (contents.remaining() < Integer.BYTES) {
+            throw new IOException("Not a snapshot: " + path);
+        }
+        int bodyLength = contents.remaining() - Integer.BYTES;
+        CRC32 checksum = new CRC32();
+        checksum.update(contents.slice(0, bodyLength));
+        if ((int) checksum.getValue() != contents.getInt(bodyLength)) {
+            throw new IOException("Snapshot is corrupted: " + path);
+        }
+
+        PayloadReader in = new PayloadReader(contents.slice(0, bodyLength));
+        if (in.getInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Not a snapshot: " + path);
+        }
+        int version = in.getInt();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        return in;
+    }
+
+    /**
+     * Decodes the whole bank and hands it to the processor.
+     *
+     * @param processor the processor receiving the restored bank
+     * @throws IOException if the snapshot has trailing data
+     */
+    private void decode(final CommandProcessor processor) throws IOException {
+        int processedCommands = in.getVarInt();
+        long ibanState = in.getVarLong();
+        long cardState = in.getVarLong();
+        context.getIdGenerator().restoreState(ibanState, cardState);
+
+        int rateCount = in.getVarInt();
+        List<ExchangeRate> rates = new ArrayList<>(rateCount);
+        for (int i = 0; i < rateCount; i++) {
+            String from = getString();
+            String to = getString();
+            rates.add(new ExchangeRate(from, to, in.getDouble()));
+        }
+
+        int userCount = in.getVarInt();
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(decodeUser());
+        }
+
+        if (!in.isExhausted()) {
+            throw new IOException("Unexpected data after the last user of the snapshot");
+        }
+        processor.restore(users, rates, processedCommands);
+    }
+
+    /**
+     * Decodes a user with everything they own, registering accounts and cards in the
+     * bank index.
+     *
+     * @return the user
+     */
+    private User decodeUser() {
+        String firstName = getString();
+        String lastName = getString();
+        String email = getString();
+        User user = new User(firstName, lastName, email, context);
+
+        int accountCount = in.getVarInt();
+        for (int i = 0; i < accountCount; i++) {
+            String iban = getString();
+            String currency = getString();
+            String accountType = getString();
+            double balance = in.getDouble();
+            double interestRate = in.getDouble();
+            Account account = new Account(iban, currencies.intern(currency),
+                    accountType, interestRate);
+            account.setBalance(balance);
+            account.setMinBalance(in.getDouble());
+            user.addAccount(account);
+
+            int cardCount = in.getVarInt();
+            for (int j = 0; j < cardCount; j++) {
+                Card card = decodeCard();
+                account.addCard(card);
+                context.getIndex().registerCard(card, account, user);
+            }
+        }
+
+        int userCardCount = in.getVarInt();
+        for (int i = 0; i < userCardCount; i++) {
+            user.addCard(decodeCard());
+        }
+
+        int aliasCount = in.getVarInt();
+        for (int i = 0; i < aliasCount; i++) {
+            String alias = getString();
+            user.setAlias(alias, getString());
+        }
+
+        int transactionCount = in.getVarInt();
+        for (int i = 0; i < transactionCount; i++) {
+            user.addTransaction(decodeTransaction());
+        }
+        return user;
+    }
+
+    /**
+     * Decodes a card.
+     *
+     * @return the card
+     */
+    private Card decodeCard() {
+        String cardNumber = getString();
+        String accountNumber = getString();
+        String status = getString();
+        Card card = new Card(cardNumber, accountNumber, in.getByte() != 0);
+        card.setStatus(status);
+        return card;
+    }
+
+    /**
+     * Decodes a transaction.
+     *
+     * @return the transaction
+     */
+    private Transaction decodeTransaction() {
+        int mask = in.getVarInt();
+        Transaction transaction = new Transaction(null, in.getVarInt(), null);
+
+        if ((mask & SnapshotWriter.TX_SENDER) != 0) {
+            transaction.setSenderIBAN(getString());
+        }
+        if ((mask & SnapshotWriter.TX_RECEIVER) != 0) {
+            transaction.setReceiverIBAN(getString());
+        }
+        if ((mask & SnapshotWriter.TX_CARD) != 0) {
+            transaction.setCardNumber(getString());
+        }
+        if ((mask & SnapshotWriter.TX_ACCOUNT) != 0) {
+            transaction.setAccountNumber(getString());
+        }
+        if ((mask & SnapshotWriter.TX_COMMERCIANT) != 0) {
+            transaction.setCommerciant(getString());
+        }
+        if ((mask & SnapshotWriter.TX_INVOLVED) != 0) {
+            int count = in.getVarInt();
+            List<String> involvedIBANs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                involvedIBANs.add(getString());
+            }
+            transaction.setInvolvedIBANs(involvedIBANs);
+        }
+        if ((mask & SnapshotWriter.TX_CURRENCY) != 0) {
+            transaction.setCurrency(currencies.intern(getString()));
+        }
+        if ((mask & SnapshotWriter.TX_EMAIL) != 0) {
+            transaction.setEmail(getString());
+        }
+        if ((mask & SnapshotWriter.TX_AMOUNT) != 0) {
+            transaction.setAmount(in.getDouble());
+        }
+        if ((mask & SnapshotWriter.TX_DESCRIPTION) != 0) {
+            transaction.setDescription(getString());
+        }
+        if ((mask & SnapshotWriter.TX_TYPE) != 0) {
+            transaction.setKind(TransactionKind.fromCode(getString()));
+        }
+        return transaction;
+    }
+
+    /**
+     * Reads a string through the dictionary.
+     *
+     * @return the string, possibly null
+     */
+    private String getString() {
+        int code = in.getVarInt();
+        if (code == SnapshotWriter.NULL_STRING) {
+            return null;
+        }
+        if (code != SnapshotWriter.NEW_STRING) {
+            return strings.get(code - SnapshotWriter.STRING_REFERENCE_BASE);
+        }
+
+        String value = new String(in.getBytes(in.getVarInt()), StandardCharsets.UTF_8);
+        strings.add(value);
+        return value;
+    }
+}
@@ -0,0 +1,275 @@
+package org.poo.main.persistence;
+
+import org.poo.main.CommandProcessor;
+import org.poo.main.structures.Account;
+import org.poo.main.structures.Card;
+import org.poo.main.structures.ExchangeRate;
+import org.poo.main.structures.Transaction;
+import org.poo.main.structures.User;
+import org.poo.utils.IdGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a compact binary snapshot of a bank: the journaled run it was taken in, the
+ * number of commands it reflects, the identifier generators, the exchange rates and every
+ * user with their accounts, cards, aliases and transaction history.
+ *
+ * <p>Counts and timestamps are varints and amounts are raw doubles, so they are restored
+ * exactly. Strings go through a dictionary: the first occurrence is written inline and
+ * later ones as a varint reference, which keeps IBANs, emails and descriptions repeated
+ * across histories down to a byte or two. The file ends with a CRC32 of its contents and
+ * is written to a temporary file first, then moved into place.
+ */
+public final class SnapshotWriter {
+    static final int MAGIC = 0x504F534E;
+    static final int VERSION = 6;
+
+    static final int NULL_STRING = 0;
+    static final int NEW_STRING = 1;
+    static final int STRING_REFERENCE_BASE = 2;
+
+    static final int TX_SENDER = 1;
+    static final int TX_RECEIVER = 1 << 1;
+    static final int TX_CARD = 1 << 2;
+    static final int TX_ACCOUNT = 1 << 3;
+    static final int TX_COMMERCIANT = 1 << 4;
+    static final int TX_INVOLVED = 1 << 5;
+    static final int TX_CURRENCY = 1 << 6;
+    static final int TX_EMAIL = 1 << 7;
+    static final int TX_AMOUNT = 1 << 8;
+    static final int TX_DESCRIPTION = 1 << 9;
+    static final int TX_TYPE = 1 << 10;
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final GrowableBuffer out = new GrowableBuffer(INITIAL_CAPACITY);
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    private SnapshotWriter() {
+    }
+
+    /**
+     * Writes a snapshot of a processor's bank, replacing any existing file.
+     *
+     * @param processor the processor to snapshot
+     * @param path      the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final CommandProcessor processor,
+                             final Path path) throws IOException {
+        write(processor, path, 0);
+    }
+
+    /**
+     * Writes a snapshot of a processor's bank taken during a journaled run, replacing any
+     * existing file. Only a recovery of that same run will start from it.
+     *
+     * @param processor the processor to snapshot
+     * @param path      the snapshot file
+     * @param runId     the {@linkplain CommandJournal#getRunId() id} of the run
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final CommandProcessor processor,
+                             final Path path,
+                             final long runId) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter();
+        writer.encode(processor, runId);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(writer.out.contents());
+        writer.out.putInt((int) checksum.getValue());
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = writer.out.contents();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encodes the whole bank.
+     *
+     * @param processor the processor to snapshot
+     * @param runId     the id of the journaled run, or 0 if the run was not journaled
+     */
+    private void encode(final CommandProcessor processor,
+                        final long runId) {
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(runId);
+        out.putVarInt(processor.getProcessedCommands());
+
+        IdGenerator ids = processor.getContext().getIdGenerator();
+        out.putVarLong(ids.getIbanState());
+        out.putVarLong(ids.getCardState());
+
+        List<ExchangeRate> rates = processor.getExchangeRates();
+        out.putVarInt(rates.size());
+        for (ExchangeRate rate : rates) {
+            putString(rate.getFromCurrency());
+            putString(rate.getToCurrency());
+            out.putDouble(rate.getRate());
+        }
+
+        out.putVarInt(processor.getUsers().size());
+        for (User user : processor.getUsers()) {
+            encodeUser(user);
+        }
+    }
+
+    /**
+     * Encodes a user with everything they own.
+     *
+     * @param user the user
+     */
+    private void encodeUser(final User user) {
+        putString(user.getFirstName());
+        putString(user.getLastName());
+        putString(user.getEmail());
+
+        out.putVarInt(user.getAccounts().size());
+        for (Account account : user.getAccounts()) {
+            putString(account.getAccountNumber());
+            putString(account.getCurrency().getCode());
+            putString(account.getAccountType());
+            out.putDouble(account.getBalance());
+            out.putDouble(account.getInterestRate());
+            out.putDouble(account.getMinBalance());
+
+            out.putVarInt(account.getCards().size());
+            for (Card card : account.getCards()) {
+                encodeCard(card);
+            }
+        }
+
+        out.putVarInt(user.getCards().size());
+        for (Card card : user.getCards()) {
+            encodeCard(card);
+        }
+
+        out.putVarInt(user.getAliases().size());
+        for (Map.Entry<String, String> alias : user.getAliases().entrySet()) {
+            putString(alias.getKey());
+            putString(alias.getValue());
+        }
+
+        List<Transaction> transactions = user.getTransactions();
+        out.putVarInt(transactions.size());
+        for (Transaction transaction : transactions) {
+            encodeTransaction(transaction);
+        }
+    }
+
+    /**
+     * Encodes a card.
+     *
+     * @param card the card
+     */
+    private void encodeCard(final Card card) {
+        putString(card.getCardNumber());
+        putString(card.getAccountNumber());
+        putString(card.getStatus());
+        out.putByte(card.isOneTime() ? 1 : 0);
+    }
+
+    /**
+     * Encodes a transaction as a mask of the fields it sets, followed by those fields.
+     *
+     * @param transaction the transaction
+     */
+    private void encodeTransaction(final Transaction transaction) {
+        int mask = 0;
+        mask |= transaction.getSenderIBAN() != null ? TX_SENDER : 0;
+        mask |= transaction.getReceiverIBAN() != null ? TX_RECEIVER : 0;
+        mask |= transaction.getCardNumber() != null ? TX_CARD : 0;
+        mask |= transaction.getAccountNumber() != null ? TX_ACCOUNT : 0;
+        mask |= transaction.getCommerciant() != null ? TX_COMMERCIANT : 0;
+        mask |= transaction.getInvolvedIBANs() != null ? TX_INVOLVED : 0;
+        mask |= transaction.getCurrency() != null ? TX_CURRENCY : 0;
+        mask |= transaction.getEmail() != null ? TX_EMAIL : 0;
+        mask |= Double.doubleToRawLongBits(transaction.getAmount()) != 0 ? TX_AMOUNT : 0;
+        mask |= transaction.getDescription() != null ? TX_DESCRIPTION : 0;
+        mask |= transaction.getKind() != null ? TX_TYPE : 0;
+        out.putVarInt(mask);
+        out.putVarInt(transaction.getTimestamp());
+
+        if ((mask & TX_SENDER) != 0) {
+            putString(transaction.getSenderIBAN());
+        }
+        if ((mask & TX_RECEIVER) != 0) {
+            putString(transaction.getReceiverIBAN());
+        }
+        if ((mask & TX_CARD) != 0) {
+            putString(transaction.getCardNumber());
+        }
+        if ((mask & TX_ACCOUNT) != 0) {
+            putString(transaction.getAccountNumber());
+        }
+        if ((mask & TX_COMMERCIANT) != 0) {
+            putString(transaction.getCommerciant());
+        }
+        if ((mask & TX_INVOLVED) != 0) {
+            out.putVarInt(transaction.getInvolvedIBANs().size());
+            for (String iban : transaction.getInvolvedIBANs()) {
+                putString(iban);
+            }
+        }
+        if ((mask & TX_CURRENCY) != 0) {
+            putString(transaction.getCurrency().getCode());
+        }
+        if ((mask & TX_EMAIL) != 0) {
+            putString(transaction.getEmail());
+        }
+        if ((mask & TX_AMOUNT) != 0) {
+            out.putDouble(transaction.getAmount());
+        }
+        if ((mask & TX_DESCRIPTION) != 0) {
+            putString(transaction.getDescription());
+        }
+        if ((mask & TX_TYPE) != 0) {
+            putString(transaction.getKind().getCode());
+        }
+    }
+
+    /**
+     * Writes a string through the dictionary.
+     *
+     * @param value the string, possibly null
+     */
+    private void putString(final String value) {
+        if (value == null) {
+            out.putVarInt(NULL_STRING);
+            return;
+        }
+
+        Integer id = strings.get(value);
+        if (id != null) {
+            out.putVarInt(STRING_REFERENCE_BASE + id);
+            return;
+        }
+
+        strings.put(value, strings.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putVarInt(NEW_STRING);
+        out.putVarInt(bytes.length);
+        out.putBytes(bytes);
+    }
+}
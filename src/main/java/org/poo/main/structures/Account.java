@@ -1,16 +1,22 @@
 package org.poo.main.structures;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.poo.fileio.CommandInput;
 import org.poo.main.CommandProcessor;
-
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.commands.CommandType;
+import org.poo.main.commands.PayOnline;
+import org.poo.main.metrics.ReportEvent;
+import org.poo.main.output.OutputSink;
+import org.poo.main.output.TransactionSerializer;
+
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 
@@ -18,15 +24,23 @@ import java.util.Map;
  * Represents a bank account with attributes such as account number, currency, type,
  * balance, and interest rate. Provides methods for managing cards, processing
  * transactions, and generating reports.
+ *
+ * <p>Balance updates are atomic: every mutator holds the account's lock, and callers
+ * moving money between several accounts take all their locks through
+ * {@link AccountLocks}, which acquires them in IBAN order.
  */
 public class Account {
     private String accountNumber;
-    private String currency;
+    private Currency currency;
     private String accountType;
-    private double balance;
+    private volatile double balance;
     private double interestRate;
     private double minBalance;
     private List<Card> cards;
+    private final TransactionTimeline reportTimeline = new TransactionTimeline();
+    private final TransactionTimeline spendingTimeline = new TransactionTimeline();
+    private final Map<String, MerchantSpending> spendingByCommerciant = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * Constructs an Account instance.
@@ -37,7 +51,7 @@ public class Account {
      * @param interestRate  the interest rate for the account.
      */
     public Account(final String accountNumber,
-                   final String currency,
+                   final Currency currency,
                    final String accountType,
                    final double interestRate) {
         this.accountNumber = accountNumber;
@@ -63,7 +77,7 @@ public class Account {
      *
      * @return the account currency.
      */
-    public String getCurrency() {
+    public Currency getCurrency() {
         return currency;
     }
 
@@ -91,7 +105,12 @@ public class Account {
      * @param balance the new balance.
      */
     public void setBalance(final double balance) {
-        this.balance = balance;
+        lock.lock();
+        try {
+            this.balance = balance;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -158,6 +177,50 @@ public class Account {
         return cards.removeIf(card -> card.getCardNumber().equals(cardNumber));
     }
 
+    /**
+     * Records a transaction of the owning user on this account's report timeline, if it
+     * belongs in the account's reports: a savings account only reports interest
+     * transactions, any other account reports every transaction of its owner.
+     *
+     * @param transaction the recorded transaction.
+     */
+    public void recordForReport(final Transaction transaction) {
+        if (transaction.isRelevantToAccountType(this)) {
+            reportTimeline.add(transaction);
+        }
+    }
+
+    /**
+     * Gets the timestamp-ordered timeline of the transactions reported for this account.
+     *
+     * @return the report timeline.
+     */
+    public TransactionTimeline getReportTimeline() {
+        return reportTimeline;
+    }
+
+    /**
+     * Records a card payment made from this account on its spending timeline and in
+     * the running totals of its commerciant.
+     *
+     * @param transaction the successful card payment.
+     */
+    public void recordSpending(final Transaction transaction) {
+        spendingTimeline.add(transaction);
+        spendingByCommerciant
+                .computeIfAbsent(transaction.getCommerciant(), name -> new MerchantSpending())
+                .record(transaction.getTimestamp(), transaction.getAmount());
+    }
+
+    /**
+     * Gets the timestamp-ordered timeline of card payments made from this account.
+     *
+     * @return the spending timeline.
+     */
+    public TransactionTimeline getSpendingTimeline() {
+        return spendingTimeline;
+    }
+
     /**
      * Clears all cards associated with the account.
      */
@@ -168,94 +231,95 @@ public class Account {
     /**
      * Processes a transaction using a card associated with the account.
      *
-     * @param command         the transaction command input.
+     * @param card            the card used for the payment, belonging to this account.
+     * @param command         the payOnline command.
+     * @param currency        the interned currency of the payment.
      * @param responseNode    the response node for transaction details.
      * @param user            the user initiating the transaction.
      * @param commandProcessor the command processor for currency conversion rates.
-     * @return true if the transaction was processed successfully; false otherwise.
-     */
-    public boolean processCardTransaction(final CommandInput command,
-                                          final ObjectNode responseNode,
-                                          final User user,
-                                          final CommandProcessor commandProcessor) {
-        for (Card card : this.cards) {
-            if (card.getCardNumber().equals(command.getCardNumber())) {
-                if (card.isFrozen()) {
-                    Transaction frozenTransaction =
-                            Transaction.createFrozenTransaction(command.getTimestamp(),
-                                    this.accountNumber);
-                    user.addTransaction(frozenTransaction);
-                    return true;
-                }
-
-                double transactionAmount = calculateTransactionAmount(command, commandProcessor);
-                if (transactionAmount < 0) {
-                    return true;
-                }
-
-                if (!isBalanceSufficient(transactionAmount)) {
-                    Transaction insufficientFundsTransaction =
-                            Transaction.createInsufficientFundsTransaction(command.getTimestamp(),
-                                    this.accountNumber);
-                    user.addTransaction(insufficientFundsTransaction);
-                    return true;
-                }
-
-                this.updateBalance(transactionAmount);
-                Transaction successfulTransaction = Transaction.createSuccessfulTransaction(command,
-                        this.accountNumber, transactionAmount);
-                user.addTransaction(successfulTransaction);
-
-                if (card.isOneTime()) {
-                    card.regenerateCardNumber(user, command.getTimestamp(), this.accountNumber);
-                }
-
-                responseNode.put("timestamp", command.getTimestamp());
-                return true;
-            }
+     * @return how the payment ended.
+     */
+    public CommandOutcome processCardTransaction(final Card card,
+                                                 final PayOnline command,
+                                                 final Currency currency,
+                                                 final ObjectNode responseNode,
+                                                 final User user,
+                                                 final CommandProcessor commandProcessor) {
+        if (card.isFrozen()) {
+            Transaction frozenTransaction =
+                    Transaction.createFrozenTransaction(command.timestamp(),
+                            this.accountNumber);
+            user.addTransaction(frozenTransaction);
+            return CommandOutcome.FROZEN;
+        }
+
+        double transactionAmount = calculateTransactionAmount(command.amount(), currency,
+                commandProcessor);
+        if (transactionAmount < 0) {
+            return CommandOutcome.REJECTED;
+        }
+
+        if (!withdrawIfSufficient(transactionAmount)) {
+            Transaction insufficientFundsTransaction =
+                    Transaction.createInsufficientFundsTransaction(command.timestamp(),
+                            this.accountNumber);
+            user.addTransaction(insufficientFundsTransaction);
+            return CommandOutcome.INSUFFICIENT_FUNDS;
         }
-        return false;
+
+        Transaction successfulTransaction = Transaction.createSuccessfulTransaction(command,
+                this.accountNumber, transactionAmount);
+        user.addTransaction(successfulTransaction);
+
+        if (card.isOneTime()) {
+            card.regenerateCardNumber(user, command.timestamp(), this.accountNumber);
+        }
+
+        responseNode.put("timestamp", command.timestamp());
+        return CommandOutcome.OK;
     }
 
     /**
      * Calculates the transaction amount, converting currencies if needed.
      *
-     * @param command         the transaction command.
+     * @param amount          the amount of the payment.
+     * @param paymentCurrency the currency of the payment.
      * @param commandProcessor the processor to fetch exchange rates.
      * @return the calculated transaction amount, or -1 if conversion fails.
      */
-    private double calculateTransactionAmount(final CommandInput command,
+    private double calculateTransactionAmount(final double amount,
+                                              final Currency paymentCurrency,
                                               final CommandProcessor commandProcessor) {
-        if (command.getCurrency().equalsIgnoreCase(this.currency)) {
-            return command.getAmount();
+        if (paymentCurrency.isSameAs(this.currency)) {
+            return amount;
         }
 
-        double conversionRate = commandProcessor.getExchangeRateFromTo(command.getCurrency(),
+        double conversionRate = commandProcessor.getExchangeRateFromTo(paymentCurrency,
                 this.currency);
         if (conversionRate == 0) {
             return -1;
         }
 
-        return command.getAmount() * conversionRate;
+        return amount * conversionRate;
     }
 
     /**
-     * Checks if the account balance is sufficient for a transaction.
-     *
-     * @param transactionAmount the transaction amount.
-     * @return true if the balance is sufficient; false otherwise.
-     */
-    private boolean isBalanceSufficient(final double transactionAmount) {
-        return this.balance >= transactionAmount;
-    }
-
-    /**
-     * Updates the account balance by subtracting the transaction amount.
+     * Subtracts the transaction amount if the balance covers it, as one atomic step.
      *
      * @param transactionAmount the transaction amount to subtract.
+     * @return true if the amount was subtracted; false if the balance is insufficient.
      */
-    private void updateBalance(final double transactionAmount) {
-        this.balance -= transactionAmount;
+    private boolean withdrawIfSufficient(final double transactionAmount) {
+        lock.lock();
+        try {
+            if (this.balance < transactionAmount) {
+                return false;
+            }
+            this.balance -= transactionAmount;
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -274,7 +338,12 @@ public class Account {
      * @param amount the amount to decrease.
      */
     public void decreaseBalance(final double amount) {
-        this.balance -= amount;
+        lock.lock();
+        try {
+            this.balance -= amount;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -283,7 +352,12 @@ public class Account {
      * @param amount the amount to increase.
      */
     public void increaseBalance(final double amount) {
-        this.balance += amount;
+        lock.lock();
+        try {
+            this.balance += amount;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -295,9 +369,9 @@ public class Account {
      * @return the converted amount, or -1 if conversion fails.
      */
     public double convertAmountIfNecessary(final double amount,
-                                           final String targetCurrency,
+                                           final Currency targetCurrency,
                                            final ConversionRateProvider rateProvider) {
-        if (this.currency.equalsIgnoreCase(targetCurrency)) {
+        if (this.currency.isSameAs(targetCurrency)) {
             return amount;
         }
 
@@ -347,7 +421,7 @@ public class Account {
     public boolean changeInterestRate(final double newInterestRate,
                                       final int timestamp,
                                       final User user,
-                                      final ArrayNode output,
+                                      final OutputSink output,
                                       final ObjectMapper objectMapper) {
         if (!"savings".equalsIgnoreCase(this.accountType)) {
             return false;
@@ -356,8 +430,8 @@ public class Account {
         this.interestRate = newInterestRate;
 
         String description = "Interest rate changed to " + newInterestRate + "%";
-        Transaction changeInterestRateTransaction = new Transaction("changeInterestRate",
-                timestamp, description);
+        Transaction changeInterestRateTransaction =
+                new Transaction(TransactionKind.CHANGE_INTEREST_RATE, timestamp, description);
         user.addTransaction(changeInterestRateTransaction);
         return true;
     }
@@ -371,9 +445,9 @@ public class Account {
      * @return the converted amount, or -1 if conversion fails.
      */
     public double convertCurrency(final double amount,
-                                  final String targetCurrency,
+                                  final Currency targetCurrency,
                                   final ConversionRateProvider rateProvider) {
-        if (this.currency.equalsIgnoreCase(targetCurrency)) {
+        if (this.currency.isSameAs(targetCurrency)) {
             return amount;
         }
         double rate = rateProvider.getRate(this.currency, targetCurrency);
@@ -388,13 +462,10 @@ public class Account {
      * @param rateProvider the conversion rate provider.
      */
     public void debitConvertedAmount(final double amount,
-                                     final String currency,
+                                     final Currency currency,
                                      final ConversionRateProvider rateProvider) {
         double convertedAmount = this.convertCurrency(amount, currency, rateProvider);
-
-        if (convertedAmount > 0 && this.hasSufficientBalance(convertedAmount)) {
-            this.debit(convertedAmount);
-        }
+        this.debit(convertedAmount);
     }
 
     /**
@@ -413,96 +484,137 @@ public class Account {
      * @param amount the amount to debit.
      */
     public void debit(final double amount) {
-        if (amount > 0 && balance >= amount) {
-            balance -= amount;
+        lock.lock();
+        try {
+            if (amount > 0 && balance >= amount) {
+                balance -= amount;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Generates a report for the account transactions.
+     * Acquires the account's lock. Callers holding several accounts must go through
+     * {@link AccountLocks} so locks are always taken in the same order.
+     */
+    void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Releases the account's lock.
+     */
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Writes a report of the account transactions, reported to the flight recorder as a
+     * {@link ReportEvent}.
      *
-     * @param user          the user owning the account.
+     * @param generator      the generator to write the report to.
      * @param startTimestamp the start timestamp for the report.
      * @param endTimestamp   the end timestamp for the report.
-     * @return a JSON node representing the account report.
-     */
-    public ObjectNode generateAccountReport(final User user,
-                                            final int startTimestamp,
-                                            final int endTimestamp) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode reportOutput = objectMapper.createObjectNode();
-        reportOutput.put("IBAN", this.getAccountNumber());
-        reportOutput.put("balance", this.getBalance());
-        reportOutput.put("currency", this.getCurrency());
-
-        ArrayNode transactionsArray = user.filterTransactionsForReport(this,
-                startTimestamp, endTimestamp);
-        reportOutput.set("transactions", transactionsArray);
+     * @throws IOException in case of exceptions to writing.
+     */
+    public void writeAccountReport(final JsonGenerator generator,
+                                   final int startTimestamp,
+                                   final int endTimestamp) throws IOException {
+        ReportEvent event = ReportEvent.beginIfEnabled();
+        generator.writeStartObject();
+        writeReportHeader(generator);
+
+        generator.writeArrayFieldStart("transactions");
+        List<Transaction> transactions = reportTimeline.between(startTimestamp, endTimestamp);
+        for (Transaction transaction : transactions) {
+            TransactionSerializer.writeReportEntry(generator, transaction);
+        }
+        generator.writeEndArray();
 
-        return reportOutput;
+        generator.writeEndObject();
+        if (event != null) {
+            event.complete(CommandType.REPORT.getName(), accountNumber, startTimestamp,
+                    endTimestamp, transactions.size(), 0);
+        }
     }
 
     /**
-     * Generates a spending report for the account.
+     * Writes a spending report for the account, reported to the flight recorder as a
+     * {@link ReportEvent}.
      *
-     * @param user          the user owning the account.
+     * @param generator      the generator to write the report to.
      * @param startTimestamp the start timestamp for the report.
      * @param endTimestamp   the end timestamp for the report.
-     * @return a JSON node representing the spending report.
-     */
-    public ObjectNode generateSpendingsReport(final User user,
-                                              final int startTimestamp,
-                                              final int endTimestamp) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode reportOutput = objectMapper.createObjectNode();
-        reportOutput.put("IBAN", this.getAccountNumber());
-        reportOutput.put("balance", this.getBalance());
-        reportOutput.put("currency", this.getCurrency());
-
-        ArrayNode transactionsArray = user.filterSpendingsTransactions(this,
-                startTimestamp, endTimestamp);
-        reportOutput.set("transactions", transactionsArray);
+     * @throws IOException in case of exceptions to writing.
+     */
+    public void writeSpendingsReport(final JsonGenerator generator,
+                                     final int startTimestamp,
+                                     final int endTimestamp) throws IOException {
+        ReportEvent event = ReportEvent.beginIfEnabled();
+        generator.writeStartObject();
+        writeReportHeader(generator);
+
+        generator.writeArrayFieldStart("transactions");
+        List<Transaction> transactions = spendingTimeline.between(startTimestamp, endTimestamp);
+        for (Transaction transaction : transactions) {
+            TransactionSerializer.writeSpendingsEntry(generator, transaction);
+        }
+        generator.writeEndArray();
 
-        ArrayNode commerciantsArray = this.calculateCommerciantTotals(transactionsArray);
-        reportOutput.set("commerciants", commerciantsArray);
+        generator.writeArrayFieldStart("commerciants");
+        int commerciants = writeCommerciantTotals(generator, startTimestamp, endTimestamp);
+        generator.writeEndArray();
 
-        return reportOutput;
+        generator.writeEndObject();
+        if (event != null) {
+            event.complete(CommandType.SPENDINGS_REPORT.getName(), accountNumber,
+                    startTimestamp, endTimestamp, transactions.size(), commerciants);
+        }
     }
 
     /**
-     * Calculates the total spendings per commerciant from transactions.
+     * Writes the account fields shared by both report kinds.
      *
-     * @param transactionsArray the array of transactions.
-     * @return a JSON array node of commerciant totals.
+     * @param generator the generator to write to.
+     * @throws IOException in case of exceptions to writing.
      */
-    private ArrayNode calculateCommerciantTotals(final ArrayNode transactionsArray) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        Map<String, Double> commerciantTotals = new HashMap<>();
-
-        for (int i = 0; i < transactionsArray.size(); i++) {
-            ObjectNode transactionNode = (ObjectNode) transactionsArray.get(i);
-            String commerciant = transactionNode.get("commerciant").asText();
-            double amount = transactionNode.get("amount").asDouble();
-
-            commerciantTotals.put(commerciant,
-                    commerciantTotals.getOrDefault(commerciant, 0.0) + amount);
-        }
+    private void writeReportHeader(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("IBAN", this.getAccountNumber());
+        generator.writeNumberField("balance", this.getBalance());
+        generator.writeStringField("currency", this.getCurrency().getCode());
+    }
 
-        ArrayNode commerciantsArray = objectMapper.createArrayNode();
-        List<String> sortedCommerciants = new ArrayList<>(commerciantTotals.keySet());
-        Collections.sort(sortedCommerciants);
+    /**
+     * Writes the total spendings per commerciant within a timestamp window, from the
+     * running totals kept for each commerciant, sorted by commerciant.
+     *
+     * @param generator      the generator to write to.
+     * @param startTimestamp the start timestamp for the report.
+     * @param endTimestamp   the end timestamp for the report.
+     * @return the number of commerciants written.
+     * @throws IOException in case of exceptions to writing.
+     */
+    private int writeCommerciantTotals(final JsonGenerator generator,
+                                       final int startTimestamp,
+                                       final int endTimestamp) throws IOException {
+        int written = 0;
+        for (Map.Entry<String, MerchantSpending> entry : spendingByCommerciant.entrySet()) {
+            MerchantSpending spending = entry.getValue();
+            if (!spending.hasPaymentsBetween(startTimestamp, endTimestamp)) {
+                continue;
+            }
 
-        for (String commerciant : sortedCommerciants) {
-            ObjectNode commerciantNode = objectMapper.createObjectNode();
-            commerciantNode.put("commerciant", commerciant);
-            commerciantNode.put("total", commerciantTotals.get(commerciant));
-            commerciantsArray.add(commerciantNode);
+            generator.writeStartObject();
+            generator.writeStringField("commerciant", entry.getKey());
+            generator.writeNumberField("total",
+                    spending.totalBetween(startTimestamp, endTimestamp));
+            generator.writeEndObject();
+            written++;
         }
-
-        return commerciantsArray;
+        return written;
     }
 
-
     /**
      * Returns a string representation of the Account object.
      *
@@ -0,0 +1,39 @@
+package org.poo.main.structures;
+
+/**
+ * Pairs an account with the user that owns it, as stored in the {@link BankIndex}.
+ */
+public final class AccountEntry {
+    private final Account account;
+    private final User owner;
+
+    /**
+     * Constructs an AccountEntry.
+     *
+     * @param account the indexed account
+     * @param owner   the user owning the account
+     */
+    public AccountEntry(final Account account,
+                        final User owner) {
+        this.account = account;
+        this.owner = owner;
+    }
+
+    /**
+     * Gets the indexed account.
+     *
+     * @return the account
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Gets the user owning the account.
+     *
+     * @return the owner
+     */
+    public User getOwner() {
+        return owner;
+    }
+}
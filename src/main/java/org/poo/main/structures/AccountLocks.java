@@ -0,0 +1,68 @@
+package org.poo.main.structures;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Locks several accounts at once for operations that move money between them. Locks
+ * are always acquired in IBAN order, so two transfers over the same accounts can never
+ * wait on each other in a cycle.
+ */
+public final class AccountLocks {
+    private static final Comparator<Account> LOCK_ORDER =
+            Comparator.comparing(Account::getAccountNumber);
+
+    private AccountLocks() {
+    }
+
+    /**
+     * Acquires the locks of the given accounts in IBAN order. An account listed more
+     * than once is locked once.
+     *
+     * @param accounts the accounts to lock
+     * @return the locked accounts, to be passed to {@link #unlockAll(List)}
+     */
+    public static List<Account> lockAll(final List<Account> accounts) {
+        List<Account> ordered = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            if (!containsSame(ordered, account)) {
+                ordered.add(account);
+            }
+        }
+        ordered.sort(LOCK_ORDER);
+
+        for (Account account : ordered) {
+            account.lock();
+        }
+        return ordered;
+    }
+
+    /**
+     * Releases locks acquired by {@link #lockAll(List)}, in reverse order.
+     *
+     * @param locked the accounts returned by lockAll
+     */
+    public static void unlockAll(final List<Account> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).unlock();
+        }
+    }
+
+    /**
+     * Checks whether a list already holds this very account.
+     *
+     * @param accounts the list to search
+     * @param account  the account
+     * @return true if the same instance is in the list
+     */
+    private static boolean containsSame(final List<Account> accounts,
+                                        final Account account) {
+        for (Account candidate : accounts) {
+            if (candidate == account) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,94 @@
+package org.poo.main.structures;
+
+import org.poo.utils.IdGenerator;
+
+/**
+ * State shared by every user of one bank: the global lookup index, the currency
+ * registry and the identifier generator. Each engine owns its own context, so several
+ * banks can run side by side in one JVM without sharing anything.
+ */
+public final class BankContext {
+    private final BankIndex index = new BankIndex();
+    private final CurrencyRegistry currencies = new CurrencyRegistry();
+    private final TransactionStore transactions = new TransactionStore();
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final boolean checkUniqueness;
+
+    /**
+     * Creates a context that never hands out an identifier already in use.
+     */
+    public BankContext() {
+        this(true);
+    }
+
+    /**
+     * Creates a context.
+     *
+     * @param checkUniqueness whether new identifiers are checked against the index
+     */
+    public BankContext(final boolean checkUniqueness) {
+        this.checkUniqueness = checkUniqueness;
+    }
+
+    /**
+     * Gets the global lookup index.
+     *
+     * @return the bank index
+     */
+    public BankIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the currency registry.
+     *
+     * @return the currency registry
+     */
+    public CurrencyRegistry getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * Gets the store holding every transaction recorded in this bank.
+     *
+     * @return the transaction store
+     */
+    public TransactionStore getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Gets the generator for IBANs and card numbers.
+     *
+     * @return the identifier generator
+     */
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Generates the IBAN of a new account. When uniqueness checking is on, IBANs already
+     * assigned to a live account are skipped.
+     *
+     * @return the new IBAN
+     */
+    public String newIban() {
+        if (!checkUniqueness) {
+            return idGenerator.generateIBAN();
+        }
+        return idGenerator.generateIBAN(iban -> index.findByIban(iban) != null);
+    }
+
+    /**
+     * Generates the number of a new card. When uniqueness checking is on, numbers already
+     * assigned to a live card are skipped.
+     *
+     * @return the new card number
+     */
+    public String newCardNumber() {
+        if (!checkUniqueness) {
+            return idGenerator.generateCardNumber();
+        }
+        return idGenerator.generateCardNumber(number -> index.findByCardNumber(number) != null);
+    }
+}
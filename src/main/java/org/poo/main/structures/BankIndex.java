@@ -0,0 +1,123 @@
+package org.poo.main.structures;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global lookup index shared by all users of a bank. It resolves an IBAN to its
+ * account and owner, and a card number to its card, account and owner, in constant
+ * time, so commands do not have to walk every user. Users keep the index up to date
+ * whenever they add or delete accounts and cards. The maps are concurrent, so users
+ * replayed on different threads can update the index at the same time.
+ */
+public final class BankIndex {
+    private final Map<String, AccountEntry> accountsByIban = new ConcurrentHashMap<>();
+    private final Map<String, CardEntry> cardsByNumber = new ConcurrentHashMap<>();
+
+    /**
+     * Registers an account under its IBAN.
+     *
+     * @param account the account to register
+     * @param owner   the user owning the account
+     */
+    public void registerAccount(final Account account,
+                                final User owner) {
+        accountsByIban.put(account.getAccountNumber(), new AccountEntry(account, owner));
+    }
+
+    /**
+     * Removes an account and all of its cards from the index.
+     *
+     * @param account the account to remove
+     */
+    public void unregisterAccount(final Account account) {
+        for (Card card : account.getCards()) {
+            cardsByNumber.remove(card.getCardNumber());
+        }
+        accountsByIban.remove(account.getAccountNumber());
+    }
+
+    /**
+     * Registers a card under its current number.
+     *
+     * @param card    the card to register
+     * @param account the account the card belongs to
+     * @param owner   the user owning the account
+     */
+    public void registerCard(final Card card,
+                             final Account account,
+                             final User owner) {
+        cardsByNumber.put(card.getCardNumber(), new CardEntry(card, account, owner));
+    }
+
+    /**
+     * Removes a card from the index.
+     *
+     * @param cardNumber the number of the card to remove
+     */
+    public void unregisterCard(final String cardNumber) {
+        cardsByNumber.remove(cardNumber);
+    }
+
+    /**
+     * Moves a card to its new number after it has been regenerated.
+     *
+     * @param oldCardNumber the number the card was registered under
+     * @param card          the card, already carrying its new number
+     */
+    public void renumberCard(final String oldCardNumber,
+                             final Card card) {
+        CardEntry entry = cardsByNumber.remove(oldCardNumber);
+        if (entry != null) {
+            cardsByNumber.put(card.getCardNumber(), entry);
+        }
+    }
+
+    /**
+     * Finds the index entry for a card number.
+     *
+     * @param cardNumber the card number to look up
+     * @return the entry, or null if no card has this number
+     */
+    public CardEntry findByCardNumber(final String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        return cardsByNumber.get(cardNumber);
+    }
+
+    /**
+     * Finds the index entry for an IBAN.
+     *
+     * @param iban the IBAN to look up
+     * @return the entry, or null if no account has this IBAN
+     */
+    public AccountEntry findByIban(final String iban) {
+        if (iban == null) {
+            return null;
+        }
+        return accountsByIban.get(iban);
+    }
+
+    /**
+     * Finds an account by its IBAN.
+     *
+     * @param iban the IBAN to look up
+     * @return the account, or null if not found
+     */
+    public Account findAccount(final String iban) {
+        AccountEntry entry = findByIban(iban);
+        return entry == null ? null : entry.getAccount();
+    }
+
+    /**
+     * Finds the owner of an account by its IBAN.
+     *
+     * @param iban the IBAN to look up
+     * @return the owning user, or null if not found
+     */
+    public User findOwner(final String iban) {
+        AccountEntry entry = findByIban(iban);
+        return entry == null ? null : entry.getOwner();
+    }
+}
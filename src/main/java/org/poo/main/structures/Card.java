@@ -1,7 +1,5 @@
 package org.poo.main.structures;
 
-import org.poo.utils.Utils;
-
 /**
  * Represents a Card associated with a user's account.
  * A Card can be active, frozen, or a one-time-use card.
@@ -106,8 +104,10 @@ public class Card {
                                      final int timestamp,
                                      final String accountNumber) {
         this.status = "frozen";
-        String newCardNumber = Utils.generateCardNumber();
+        String oldCardNumber = this.cardNumber;
+        String newCardNumber = user.getContext().newCardNumber();
         this.cardNumber = newCardNumber;
+        user.getIndex().renumberCard(oldCardNumber, this);
         this.status = "active";
 
         Transaction updateCardTransaction =
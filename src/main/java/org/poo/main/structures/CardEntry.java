@@ -0,0 +1,53 @@
+package org.poo.main.structures;
+
+/**
+ * Links a card to the account it belongs to and the user owning that account,
+ * as stored in the {@link BankIndex}.
+ */
+public final class CardEntry {
+    private final Card card;
+    private final Account account;
+    private final User owner;
+
+    /**
+     * Constructs a CardEntry.
+     *
+     * @param card    the indexed card
+     * @param account the account the card belongs to
+     * @param owner   the user owning the account
+     */
+    public CardEntry(final Card card,
+                     final Account account,
+                     final User owner) {
+        this.card = card;
+        this.account = account;
+        this.owner = owner;
+    }
+
+    /**
+     * Gets the indexed card.
+     *
+     * @return the card
+     */
+    public Card getCard() {
+        return card;
+    }
+
+    /**
+     * Gets the account the card belongs to.
+     *
+     * @return the account
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Gets the user owning the card's account.
+     *
+     * @return the owner
+     */
+    public User getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,61 @@
+package org.poo.main.structures;
+
+/**
+ * An interned currency code. Codes that differ only in case share the same id, so
+ * two currencies can be compared with a single int check, while the code keeps the
+ * spelling it was first seen with for output.
+ */
+public final class Currency {
+    private final int id;
+    private final String code;
+
+    /**
+     * Constructs a Currency. Instances are created by the {@link CurrencyRegistry}.
+     *
+     * @param id   the dense id shared by all spellings of the code
+     * @param code the code as it appeared in the input
+     */
+    Currency(final int id,
+             final String code) {
+        this.id = id;
+        this.code = code;
+    }
+
+    /**
+     * Gets the dense id of the currency.
+     *
+     * @return the currency id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the currency code as it appeared in the input.
+     *
+     * @return the currency code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Checks whether two currencies denote the same code, ignoring case.
+     *
+     * @param other the currency to compare with
+     * @return true if both have the same id, false otherwise
+     */
+    public boolean isSameAs(final Currency other) {
+        return id == other.id;
+    }
+
+    /**
+     * Returns the currency code.
+     *
+     * @return the currency code
+     */
+    @Override
+    public String toString() {
+        return code;
+    }
+}
@@ -0,0 +1,60 @@
+package org.poo.main.structures;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalises currency codes into {@link Currency} instances. Each distinct spelling
+ * is interned once, and spellings that differ only in case get the same dense id.
+ * Lookups of known codes are lock-free; registering a new code is serialised.
+ */
+public final class CurrencyRegistry {
+    private final Map<String, Currency> currenciesByCode = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+
+    /**
+     * Returns the interned currency for a code, registering it on first use.
+     *
+     * @param code the currency code
+     * @return the interned currency, or null if the code is null
+     */
+    public Currency intern(final String code) {
+        if (code == null) {
+            return null;
+        }
+
+        Currency currency = currenciesByCode.get(code);
+        return currency != null ? currency : register(code);
+    }
+
+    /**
+     * Registers a code that has not been seen yet.
+     *
+     * @param code the currency code
+     * @return the interned currency
+     */
+    private synchronized Currency register(final String code) {
+        Currency currency = currenciesByCode.get(code);
+        if (currency == null) {
+            String key = code.toUpperCase();
+            Integer id = idsByKey.get(key);
+            if (id == null) {
+                id = idsByKey.size();
+                idsByKey.put(key, id);
+            }
+            currency = new Currency(id, code);
+            currenciesByCode.put(code, currency);
+        }
+        return currency;
+    }
+
+    /**
+     * Gets the number of distinct currency ids handed out so far.
+     *
+     * @return the number of currency ids
+     */
+    public synchronized int size() {
+        return idsByKey.size();
+    }
+}
@@ -0,0 +1,137 @@
+package org.poo.main.structures;
+
+import org.poo.main.metrics.RateResolutionEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed conversion table over every pair of known currencies.
+ * Currencies are identified by the dense ids of a {@link CurrencyRegistry} and the rate
+ * between any two of them is resolved once, when the table is built, so a conversion
+ * is a lookup in a matrix. Pairs with no conversion path have a rate of 0. The length of
+ * each resolved path is kept alongside, for {@link RateResolutionEvent}s.
+ */
+public final class ExchangeRateTable implements ConversionRateProvider {
+    private final double[][] rates;
+    private final int[][] pathLengths;
+
+    /**
+     * Builds the table from a list of direct exchange rates.
+     *
+     * @param exchangeRates the direct rates, in the order they were declared
+     * @param currencies    the registry assigning ids to the currencies
+     */
+    public ExchangeRateTable(final List<ExchangeRate> exchangeRates,
+                             final CurrencyRegistry currencies) {
+        List<int[]> declared = new ArrayList<>();
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            declared.add(new int[]{currencies.intern(exchangeRate.getFromCurrency()).getId(),
+                    currencies.intern(exchangeRate.getToCurrency()).getId()});
+        }
+
+        int size = currencies.size();
+        List<List<int[]>> edges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            edges.add(new ArrayList<>());
+        }
+        List<Double> edgeRates = new ArrayList<>();
+        for (int i = 0; i < declared.size(); i++) {
+            int[] pair = declared.get(i);
+            edges.get(pair[0]).add(new int[]{pair[1], i});
+            edgeRates.add(exchangeRates.get(i).getRate());
+        }
+
+        rates = new double[size][size];
+        pathLengths = new int[size][size];
+        int[] pathLength = new int[1];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                pathLength[0] = 0;
+                rates[from][to] = findRate(from, to, edges, edgeRates, new boolean[size],
+                        pathLength);
+                pathLengths[from][to] = pathLength[0];
+            }
+        }
+    }
+
+    /**
+     * Resolves the rate between two currencies by depth-first search, preferring a
+     * direct rate and otherwise following declared rates in order.
+     *
+     * @param from       the source currency id
+     * @param to         the target currency id
+     * @param edges      the adjacency lists of declared rates
+     * @param edgeRates  the declared rate values
+     * @param visited    the currencies already explored
+     * @param pathLength holder incremented by the number of rates on the path found
+     * @return the rate, or 0 if the currencies are not connected
+     */
+    private static double findRate(final int from,
+                                   final int to,
+                                   final List<List<int[]>> edges,
+                                   final List<Double> edgeRates,
+                                   final boolean[] visited,
+                                   final int[] pathLength) {
+        if (from == to) {
+            return 1.0;
+        }
+
+        visited[from] = true;
+        for (int[] edge : edges.get(from)) {
+            if (edge[0] == to) {
+                pathLength[0]++;
+                return edgeRates.get(edge[1]);
+            }
+        }
+
+        for (int[] edge : edges.get(from)) {
+            if (!visited[edge[0]]) {
+                double intermediateRate = findRate(edge[0], to, edges, edgeRates, visited,
+                        pathLength);
+                if (intermediateRate > 0) {
+                    pathLength[0]++;
+                    return edgeRates.get(edge[1]) * intermediateRate;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the rate between two currencies, reporting the lookup to the flight recorder
+     * when a recording is running.
+     *
+     * @param fromCurrency the source currency
+     * @param toCurrency   the target currency
+     * @return the rate, or 0 if there is no conversion path
+     */
+    @Override
+    public double getRate(final Currency fromCurrency,
+                          final Currency toCurrency) {
+        int fromId = fromCurrency.getId();
+        int toId = toCurrency.getId();
+        if (fromId == toId) {
+            RateResolutionEvent.commitIfEnabled(fromCurrency.getCode(), toCurrency.getCode(),
+                    0, true);
+            return 1.0;
+        }
+        if (fromId >= rates.length || toId >= rates.length) {
+            RateResolutionEvent.commitIfEnabled(fromCurrency.getCode(), toCurrency.getCode(),
+                    0, false);
+            return 0;
+        }
+        double rate = rates[fromId][toId];
+        RateResolutionEvent.commitIfEnabled(fromCurrency.getCode(), toCurrency.getCode(),
+                pathLengths[fromId][toId], rate > 0);
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangeRateTable{"
+                + "rates=" + Arrays.deepToString(rates)
+                + '}';
+    }
+}
@@ -0,0 +1,70 @@
+package org.poo.main.structures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense int ids to values, so that equal values are stored once and referenced by
+ * id. Id 0 always stands for null.
+ *
+ * <p>Interning is not synchronised and must be serialised by the caller. Looking a value
+ * up by its id needs no lock, provided the id was handed over through a happens-before
+ * edge: values are never moved once written, and a grown array is published through a
+ * volatile field.
+ *
+ * @param <T> the type of the interned values
+ */
+final class InternTable<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<T, Integer> ids = new HashMap<>();
+    private volatile Object[] values = new Object[INITIAL_CAPACITY];
+    private int size = 1;
+
+    /**
+     * Returns the id of a value, assigning the next free id on first use.
+     *
+     * @param value the value, possibly null
+     * @return the id of the value, or 0 for null
+     */
+    int intern(final T value) {
+        if (value == null) {
+            return 0;
+        }
+
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+
+        Object[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        ids.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Gets the value an id was assigned to.
+     *
+     * @param id the id
+     * @return the value, or null for id 0
+     */
+    @SuppressWarnings("unchecked")
+    T get(final int id) {
+        return (T) values[id];
+    }
+
+    /**
+     * Gets the number of distinct values interned so far.
+     *
+     * @return the number of values, not counting null
+     */
+    int size() {
+        return size - 1;
+    }
+}
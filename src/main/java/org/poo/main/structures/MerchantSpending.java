@@ -0,0 +1,124 @@
+package org.poo.main.structures;
+
+import java.util.Arrays;
+
+/**
+ * Running record of what one account spent at one commerciant. Payments are appended
+ * as they happen, together with prefix sums of their amounts. The payments within a
+ * timestamp window are found with binary searches instead of re-reading the account's
+ * transactions; a window starting at the first payment takes its total from the prefix
+ * sums, any other window adds up its own slice.
+ */
+public final class MerchantSpending {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] timestamps = new int[INITIAL_CAPACITY];
+    private double[] amounts = new double[INITIAL_CAPACITY];
+    private double[] prefixSums = new double[INITIAL_CAPACITY + 1];
+    private int size;
+    private boolean ordered = true;
+
+    /**
+     * Records a payment to the commerciant.
+     *
+     * @param timestamp the timestamp of the payment
+     * @param amount    the amount paid, in the account's currency
+     */
+    public void record(final int timestamp,
+                       final double amount) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+            prefixSums = Arrays.copyOf(prefixSums, size * 2 + 1);
+        }
+        if (size > 0 && timestamps[size - 1] > timestamp) {
+            ordered = false;
+        }
+        timestamps[size] = timestamp;
+        amounts[size] = amount;
+        prefixSums[size + 1] = prefixSums[size] + amount;
+        size++;
+    }
+
+    /**
+     * Checks whether any payment falls within an inclusive timestamp window.
+     *
+     * @param startTimestamp the start of the window
+     * @param endTimestamp   the end of the window
+     * @return true if at least one payment is in the window, false otherwise
+     */
+    public boolean hasPaymentsBetween(final int startTimestamp,
+                                      final int endTimestamp) {
+        if (!ordered) {
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] >= startTimestamp && timestamps[i] <= endTimestamp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return firstIndexAfter(startTimestamp - 1L) < firstIndexAfter(endTimestamp);
+    }
+
+    /**
+     * Gets the total paid within an inclusive timestamp window. Payments are added in
+     * the order they were made, so the result matches summing the window's
+     * transactions one by one; windows that start at the first payment are read
+     * straight from the prefix sums.
+     *
+     * @param startTimestamp the start of the window
+     * @param endTimestamp   the end of the window
+     * @return the total paid in the window
+     */
+    public double totalBetween(final int startTimestamp,
+                               final int endTimestamp) {
+        if (!ordered) {
+            double total = 0.0;
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] >= startTimestamp && timestamps[i] <= endTimestamp) {
+                    total += amounts[i];
+                }
+            }
+            return total;
+        }
+
+        int from = firstIndexAfter(startTimestamp - 1L);
+        int to = firstIndexAfter(endTimestamp);
+        if (from == 0) {
+            return prefixSums[to];
+        }
+        double total = 0.0;
+        for (int i = from; i < to; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Binary searches for the first payment with a timestamp greater than a bound.
+     *
+     * @param bound the exclusive lower bound
+     * @return the index of the first such payment, or the size if there is none
+     */
+    private int firstIndexAfter(final long bound) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] <= bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return "MerchantSpending{"
+                + "payments=" + size
+                + ", total=" + prefixSums[size]
+                + '}';
+    }
+}
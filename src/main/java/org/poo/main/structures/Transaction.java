@@ -1,28 +1,41 @@
 package org.poo.main.structures;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.poo.fileio.CommandInput;
+import org.poo.main.commands.PayOnline;
+import org.poo.main.commands.SendMoney;
 
 import java.util.List;
 
 /**
  * Represents a financial transaction involving accounts, cards, and IBANs.
+ *
+ * <p>A transaction starts out as a draft that holds its own fields and can be freely set
+ * up. Once a user records it, it is copied into the bank's {@link TransactionStore} and
+ * becomes a read-only view of its row; the same recorded transaction may then be added to
+ * other users' histories, which share the row.
  */
 public class Transaction {
 
-    private String senderIBAN;
-    private String receiverIBAN;
-    private String cardNumber;
-    private String accountNumber;
-    private String commerciant;
-    private List<String> involvedIBANs;
-    private String currency;
-    private String email;
-    private double amount;
-    private String description;
-    private int timestamp;
-    private String type;
+    private TransactionStore store;
+    private int row;
+    private Draft draft;
+
+    /**
+     * The fields of a transaction that has not been recorded yet.
+     */
+    private static final class Draft {
+        private String senderIBAN;
+        private String receiverIBAN;
+        private String cardNumber;
+        private String accountNumber;
+        private String commerciant;
+        private List<String> involvedIBANs;
+        private Currency currency;
+        private String email;
+        private double amount;
+        private String description;
+        private int timestamp;
+        private TransactionKind kind;
+    }
 
     // Getters and Setters
 
@@ -32,7 +45,7 @@ public class Transaction {
      * @return the list of involved IBANs
      */
     public List<String> getInvolvedIBANs() {
-        return involvedIBANs;
+        return draft != null ? draft.involvedIBANs : store.getInvolvedIBANs(row);
     }
 
     /**
@@ -41,7 +54,8 @@ public class Transaction {
      * @param involvedIBANs the list of involved IBANs to set
      */
     public void setInvolvedIBANs(final List<String> involvedIBANs) {
-        this.involvedIBANs = involvedIBANs;
+        checkDraft();
+        draft.involvedIBANs = involvedIBANs;
     }
 
     /**
@@ -50,7 +64,7 @@ public class Transaction {
      * @return the merchant name
      */
     public String getCommerciant() {
-        return commerciant;
+        return draft != null ? draft.commerciant : store.getCommerciant(row);
     }
 
     /**
@@ -59,7 +73,8 @@ public class Transaction {
      * @param commerciant the merchant name to set
      */
     public void setCommerciant(final String commerciant) {
-        this.commerciant = commerciant;
+        checkDraft();
+        draft.commerciant = commerciant;
     }
 
     /**
@@ -68,7 +83,7 @@ public class Transaction {
      * @return the card number
      */
     public String getCardNumber() {
-        return cardNumber;
+        return draft != null ? draft.cardNumber : store.getCardNumber(row);
     }
 
     /**
@@ -77,7 +92,8 @@ public class Transaction {
      * @param cardNumber the card number to set
      */
     public void setCardNumber(final String cardNumber) {
-        this.cardNumber = cardNumber;
+        checkDraft();
+        draft.cardNumber = cardNumber;
     }
 
     /**
@@ -86,7 +102,7 @@ public class Transaction {
      * @return the sender's IBAN
      */
     public String getSenderIBAN() {
-        return senderIBAN;
+        return draft != null ? draft.senderIBAN : store.getSenderIBAN(row);
     }
 
     /**
@@ -95,7 +111,8 @@ public class Transaction {
      * @param senderIBAN the sender's IBAN to set
      */
     public void setSenderIBAN(final String senderIBAN) {
-        this.senderIBAN = senderIBAN;
+        checkDraft();
+        draft.senderIBAN = senderIBAN;
     }
 
     /**
@@ -104,7 +121,7 @@ public class Transaction {
      * @return the receiver's IBAN
      */
     public String getReceiverIBAN() {
-        return receiverIBAN;
+        return draft != null ? draft.receiverIBAN : store.getReceiverIBAN(row);
     }
 
     /**
@@ -113,7 +130,8 @@ public class Transaction {
      * @param receiverIBAN the receiver's IBAN to set
      */
     public void setReceiverIBAN(final String receiverIBAN) {
-        this.receiverIBAN = receiverIBAN;
+        checkDraft();
+        draft.receiverIBAN = receiverIBAN;
     }
 
     /**
@@ -121,8 +139,8 @@ public class Transaction {
      *
      * @return the currency
      */
-    public String getCurrency() {
-        return currency;
+    public Currency getCurrency() {
+        return draft != null ? draft.currency : store.getCurrency(row);
     }
 
     /**
@@ -130,8 +148,9 @@ public class Transaction {
      *
      * @param currency the currency to set
      */
-    public void setCurrency(final String currency) {
-        this.currency = currency;
+    public void setCurrency(final Currency currency) {
+        checkDraft();
+        draft.currency = currency;
     }
 
     /**
@@ -140,7 +159,7 @@ public class Transaction {
      * @return the email
      */
     public String getEmail() {
-        return email;
+        return draft != null ? draft.email : store.getEmail(row);
     }
 
     /**
@@ -149,7 +168,8 @@ public class Transaction {
      * @param email the email to set
      */
     public void setEmail(final String email) {
-        this.email = email;
+        checkDraft();
+        draft.email = email;
     }
 
     /**
@@ -158,7 +178,7 @@ public class Transaction {
      * @return the account number
      */
     public String getAccountNumber() {
-        return accountNumber;
+        return draft != null ? draft.accountNumber : store.getAccountNumber(row);
     }
 
     /**
@@ -167,7 +187,8 @@ public class Transaction {
      * @param accountNumber the account number to set
      */
     public void setAccountNumber(final String accountNumber) {
-        this.accountNumber = accountNumber;
+        checkDraft();
+        draft.accountNumber = accountNumber;
     }
 
     /**
@@ -176,7 +197,7 @@ public class Transaction {
      * @return the transaction amount
      */
     public double getAmount() {
-        return amount;
+        return draft != null ? draft.amount : store.getAmount(row);
     }
 
     /**
@@ -185,7 +206,8 @@ public class Transaction {
      * @param amount the transaction amount to set
      */
     public void setAmount(final double amount) {
-        this.amount = amount;
+        checkDraft();
+        draft.amount = amount;
     }
 
     /**
@@ -194,7 +216,7 @@ public class Transaction {
      * @return the transaction description
      */
     public String getDescription() {
-        return description;
+        return draft != null ? draft.description : store.getDescription(row);
     }
 
     /**
@@ -203,7 +225,8 @@ public class Transaction {
      * @param description the transaction description to set
      */
     public void setDescription(final String description) {
-        this.description = description;
+        checkDraft();
+        draft.description = description;
     }
 
     /**
@@ -212,7 +235,7 @@ public class Transaction {
      * @return the transaction timestamp
      */
     public int getTimestamp() {
-        return timestamp;
+        return draft != null ? draft.timestamp : store.getTimestamp(row);
     }
 
     /**
@@ -221,34 +244,106 @@ public class Transaction {
      * @param timestamp the transaction timestamp to set
      */
     public void setTimestamp(final int timestamp) {
-        this.timestamp = timestamp;
+        checkDraft();
+        draft.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the kind of the transaction.
+     *
+     * @return the transaction kind
+     */
+    public TransactionKind getKind() {
+        return draft != null ? draft.kind : store.getKind(row);
+    }
+
+    /**
+     * Sets the kind of the transaction.
+     *
+     * @param kind the transaction kind to set
+     */
+    public void setKind(final TransactionKind kind) {
+        checkDraft();
+        draft.kind = kind;
+    }
+
+    // Recording
+
+    /**
+     * Records the transaction in a store, turning it into a view of its new row. A
+     * transaction already recorded in the store is left as it is, so it can be added to
+     * several histories.
+     *
+     * @param target the store to record the transaction in
+     */
+    void recordIn(final TransactionStore target) {
+        if (draft == null) {
+            if (store != target) {
+                throw new IllegalStateException("Transaction recorded in another bank");
+            }
+            return;
+        }
+        row = target.append(this);
+        store = target;
+        draft = null;
     }
 
     /**
-     * Gets the type of the transaction.
+     * Checks whether the transaction has been recorded and is now read-only.
      *
-     * @return the transaction type
+     * @return true if the transaction is a view of a stored row
      */
-    public String getType() {
-        return type;
+    public boolean isRecorded() {
+        return draft == null;
     }
 
     /**
-     * Sets the type of the transaction.
+     * Gets the store holding a recorded transaction.
      *
-     * @param type the transaction type to set
+     * @return the store, or null for a draft
      */
-    public void setType(final String type) {
-        this.type = type;
+    TransactionStore getStore() {
+        return store;
     }
 
+    /**
+     * Gets the row of a recorded transaction in its store.
+     *
+     * @return the row index
+     */
+    int getRow() {
+        return row;
+    }
+
+    /**
+     * Ensures the transaction can still be modified.
+     *
+     * @throws IllegalStateException if the transaction has already been recorded
+     */
+    private void checkDraft() {
+        if (draft == null) {
+            throw new IllegalStateException("A recorded transaction cannot be modified");
+        }
+    }
 
     // Constructors
 
+    /**
+     * Constructs a view of a recorded transaction.
+     *
+     * @param store the store holding the transaction
+     * @param row   the row of the transaction in the store
+     */
+    Transaction(final TransactionStore store,
+                final int row) {
+        this.store = store;
+        this.row = row;
+    }
+
     /**
      * Constructs a Transaction for sending money.
      *
-     * @param type the type of transaction
+     * @param kind the kind of transaction
      * @param timestamp the timestamp of the transaction
      * @param description the description of the transaction
      * @param accountNumber the sender's account number
@@ -257,46 +352,48 @@ public class Transaction {
      * @param currency the currency used
      * @param email the sender's email
      */
-    public Transaction(final String type,
+    public Transaction(final TransactionKind kind,
                        final int timestamp,
                        final String description,
                        final String accountNumber,
                        final String receiverIBAN,
                        final double amount,
-                       final String currency,
+                       final Currency currency,
                        final String email) {
-        this.type = type;
-        this.timestamp = timestamp;
-        this.description = description;
-        this.senderIBAN = accountNumber;
-        this.receiverIBAN = receiverIBAN;
-        this.amount = amount;
-        this.currency = currency;
-        this.email = email;
+        this.draft = new Draft();
+        draft.kind = kind;
+        draft.timestamp = timestamp;
+        draft.description = description;
+        draft.senderIBAN = accountNumber;
+        draft.receiverIBAN = receiverIBAN;
+        draft.amount = amount;
+        draft.currency = currency;
+        draft.email = email;
     }
 
     /**
      * Constructs a Transaction for card-related operations.
      *
-     * @param type the type of transaction
+     * @param kind the kind of transaction
      * @param timestamp the timestamp of the transaction
      * @param description the description of the transaction
      * @param cardNumber the card number involved
      * @param email the email associated with the card
      * @param accountNumber the account number linked to the card
      */
-    public Transaction(final String type,
+    public Transaction(final TransactionKind kind,
                        final int timestamp,
                        final String description,
                        final String cardNumber,
                        final String email,
                        final String accountNumber) {
-        this.type = type;
-        this.timestamp = timestamp;
-        this.description = description;
-        this.cardNumber = cardNumber;
-        this.email = email;
-        this.accountNumber = accountNumber;
+        this.draft = new Draft();
+        draft.kind = kind;
+        draft.timestamp = timestamp;
+        draft.description = description;
+        draft.cardNumber = cardNumber;
+        draft.email = email;
+        draft.accountNumber = accountNumber;
     }
 
     /**
@@ -307,56 +404,59 @@ public class Transaction {
      * @param amount the amount per split
      * @param description the description of the transaction
      * @param timestamp the timestamp of the transaction
-     * @param type the type of transaction
+     * @param kind the kind of transaction
      */
     public Transaction(final List<String> involvedIBANs,
-                       final String currency,
+                       final Currency currency,
                        final double amount,
                        final String description,
                        final int timestamp,
-                       final String type) {
-        this.involvedIBANs = involvedIBANs;
-        this.currency = currency;
-        this.amount = amount;
-        this.description = description;
-        this.timestamp = timestamp;
-        this.type = type;
+                       final TransactionKind kind) {
+        this.draft = new Draft();
+        draft.involvedIBANs = involvedIBANs;
+        draft.currency = currency;
+        draft.amount = amount;
+        draft.description = description;
+        draft.timestamp = timestamp;
+        draft.kind = kind;
     }
 
     /**
      * Constructs a simple account-related Transaction.
      *
-     * @param type the type of transaction
+     * @param kind the kind of transaction
      * @param accountNumber the account number involved
      * @param amount the amount involved
      * @param description the description of the transaction
      * @param timestamp the timestamp of the transaction
      */
-    public Transaction(final String type,
+    public Transaction(final TransactionKind kind,
                        final String accountNumber,
                        final double amount,
                        final String description,
                        final int timestamp) {
-        this.type = type;
-        this.accountNumber = accountNumber;
-        this.amount = amount;
-        this.description = description;
-        this.timestamp = timestamp;
+        this.draft = new Draft();
+        draft.kind = kind;
+        draft.accountNumber = accountNumber;
+        draft.amount = amount;
+        draft.description = description;
+        draft.timestamp = timestamp;
     }
 
     /**
      * Constructs a basic Transaction.
      *
-     * @param type the type of transaction
+     * @param kind the kind of transaction
      * @param timestamp the timestamp of the transaction
      * @param description the description of the transaction
      */
-    public Transaction(final String type,
+    public Transaction(final TransactionKind kind,
                        final int timestamp,
                        final String description) {
-        this.type = type;
-        this.timestamp = timestamp;
-        this.description = description;
+        this.draft = new Draft();
+        draft.kind = kind;
+        draft.timestamp = timestamp;
+        draft.description = description;
     }
 
     // Factory Methods and Static Helpers
@@ -370,7 +470,8 @@ public class Transaction {
      */
     public static Transaction createFrozenTransaction(final int timestamp,
                                                       final String accountNumber) {
-        Transaction transaction = new Transaction("payFrosen", timestamp, "The card is frozen");
+        Transaction transaction = new Transaction(TransactionKind.PAY_FROZEN,
+                timestamp, "The card is frozen");
         transaction.setAccountNumber(accountNumber);
         return transaction;
     }
@@ -378,18 +479,18 @@ public class Transaction {
     /**
      * Creates a successful transaction for card payment.
      *
-     * @param command the input command
+     * @param command the payOnline command
      * @param accountNumber the account number used
      * @param amount the transaction amount
      * @return a Transaction object
      */
-    public static Transaction createSuccessfulTransaction(final CommandInput command,
+    public static Transaction createSuccessfulTransaction(final PayOnline command,
                                                           final String accountNumber,
                                                           final double amount) {
-        Transaction transaction = new Transaction("paySucessful",
-                command.getTimestamp(), "Card payment");
+        Transaction transaction = new Transaction(TransactionKind.PAY_SUCCESSFUL,
+                command.timestamp(), "Card payment");
         transaction.setAmount(amount);
-        transaction.setCommerciant(command.getCommerciant());
+        transaction.setCommerciant(command.commerciant());
         transaction.setAccountNumber(accountNumber);
         return transaction;
     }
@@ -407,7 +508,7 @@ public class Transaction {
                                                                        final String cardNumber,
                                                                        final String email,
                                                                        final String accountNumber) {
-        Transaction transaction = new Transaction("updateOneTimeCard",
+        Transaction transaction = new Transaction(TransactionKind.UPDATE_ONE_TIME_CARD,
                 timestamp, "One-time card number regenerated");
         transaction.setCardNumber(cardNumber);
         transaction.setEmail(email);
@@ -424,7 +525,8 @@ public class Transaction {
      */
     public static Transaction createInsufficientFundsTransaction(final int timestamp,
                                                                  final String accountNumber) {
-        Transaction transaction = new Transaction("payNoFunds", timestamp, "Insufficient funds");
+        Transaction transaction = new Transaction(TransactionKind.PAY_NO_FUNDS,
+                timestamp, "Insufficient funds");
         transaction.setAccountNumber(accountNumber);
         return transaction;
     }
@@ -432,46 +534,23 @@ public class Transaction {
     /**
      * Creates a transaction for sending money.
      *
-     * @param command the input command
+     * @param command the sendMoney command
      * @param senderAccount the sender's account
      * @param receiverAccount the receiver's account
      * @return a Transaction object
      */
-    public static Transaction createSendMoneyTransaction(final CommandInput command,
+    public static Transaction createSendMoneyTransaction(final SendMoney command,
                                                          final Account senderAccount,
                                                          final Account receiverAccount) {
         return new Transaction(
-                "sendMoney",
-                command.getTimestamp(),
-                command.getDescription(),
+                TransactionKind.SEND_MONEY,
+                command.timestamp(),
+                command.description(),
                 senderAccount.getAccountNumber(),
                 receiverAccount.getAccountNumber(),
-                command.getAmount(),
+                command.amount(),
                 senderAccount.getCurrency(),
-                command.getEmail()
-        );
-    }
-
-    /**
-     * Creates a transaction for receiving money.
-     *
-     * @param command the input command
-     * @param senderAccount the sender's account
-     * @param receiverAccount the receiver's account
-     * @return a Transaction object
-     */
-    public static Transaction createReceiveMoneyTransaction(final CommandInput command,
-                                                            final Account senderAccount,
-                                                            final Account receiverAccount) {
-        return new Transaction(
-                "sendMoney",
-                command.getTimestamp(),
-                command.getDescription(),
-                senderAccount.getAccountNumber(),
-                receiverAccount.getAccountNumber(),
-                command.getAmount(),
-                senderAccount.getCurrency(),
-                command.getEmail()
+                command.email()
         );
     }
 
@@ -487,7 +566,7 @@ public class Transaction {
                                                       final Account account,
                                                       final Card card) {
         Transaction transaction = new Transaction(
-                "checkCardStatus",
+                TransactionKind.CHECK_CARD_STATUS,
                 timestamp,
                 "You have reached the minimum amount of funds, the card will be frozen"
         );
@@ -496,55 +575,6 @@ public class Transaction {
         return transaction;
     }
 
-    /**
-     * Creates a split payment transaction.
-     *
-     * @param user the user initiating the transaction
-     * @param account the account being used
-     * @param timestamp the timestamp of the transaction
-     * @param share the amount shared in the split
-     * @param currency the currency of the transaction
-     * @param involvedIBANs the list of IBANs involved in the split
-     * @param totalAmount the total amount of the split payment
-     */
-    public static void createSplitPaymentTransaction(final User user,
-                                                     final Account account,
-                                                     final int timestamp,
-                                                     final double share,
-                                                     final String currency,
-                                                     final List<String> involvedIBANs,
-                                                     final double totalAmount) {
-        String description = String.format("Split payment of %.2f %s", totalAmount, currency);
-
-        Transaction splitPaymentTransaction = new Transaction(
-                "splitPayment",
-                timestamp,
-                description
-        );
-        splitPaymentTransaction.setCurrency(currency);
-        splitPaymentTransaction.setAmount(share);
-        splitPaymentTransaction.setInvolvedIBANs(involvedIBANs);
-
-        user.addTransaction(splitPaymentTransaction);
-    }
-
-    /**
-     * Creates a failed split payment transaction.
-     *
-     * @param user the user involved in the failed transaction
-     * @param timestamp the timestamp of the transaction
-     */
-    public static void createFailedSplitPaymentTransaction(final User user,
-                                                           final int timestamp) {
-        Transaction failedSplitPaymentTransaction = new Transaction(
-                "payNoFunds",
-                timestamp,
-                "Split payment failed due to insufficient funds"
-        );
-
-        user.addTransaction(failedSplitPaymentTransaction);
-    }
-
     // Utility Methods
 
     /**
@@ -569,75 +599,28 @@ public class Transaction {
         if (!"savings".equalsIgnoreCase(account.getAccountType())) {
             return true;
         }
-        return "interestIncome".equalsIgnoreCase(this.getType())
-                || "changeInterestRate".equalsIgnoreCase(this.getType());
-    }
-
-    /**
-     * Converts the transaction into a report node for JSON representation.
-     *
-     * @param objectMapper the object mapper for JSON creation
-     * @return an ObjectNode containing transaction details
-     */
-    public ObjectNode toReportNode(final ObjectMapper objectMapper) {
-        ObjectNode transactionNode = objectMapper.createObjectNode();
-        transactionNode.put("timestamp", this.getTimestamp());
-        transactionNode.put("description", this.getDescription());
-
-        switch (this.getType()) {
-            case "addAccount":
-            case "addCard":
-            case "deleteCard":
-            case "checkCardStatus":
-            case "changeInterestRate":
-                if (this.getCardNumber() != null) {
-                    transactionNode.put("card", this.getCardNumber());
-                }
-                if (this.getEmail() != null) {
-                    transactionNode.put("cardHolder", this.getEmail());
-                }
-                if (this.getAccountNumber() != null) {
-                    transactionNode.put("account", this.getAccountNumber());
-                }
-                break;
-
-            case "paySucessful":
-            case "payNoFunds":
-            case "PayOnetime":
-            case "payFrosen":
-            case "splitPayment":
-            case "splitPaymentFailed":
-                if (this.getAmount() > 0) {
-                    transactionNode.put("amount", this.getAmount());
-                }
-                if (this.getCommerciant() != null) {
-                    transactionNode.put("commerciant", this.getCommerciant());
-                }
-                break;
-
-            case "sendMoney":
-                if (this.getSenderIBAN() != null) {
-                    transactionNode.put("senderIBAN", this.getSenderIBAN());
-                }
-                if (this.getReceiverIBAN() != null) {
-                    transactionNode.put("receiverIBAN", this.getReceiverIBAN());
-                }
-                if (this.getAmount() > 0) {
-                    String amountWithCurrencySend = String.format("%.1f", this.getAmount())
-                            + " " + this.getCurrency();
-                    transactionNode.put("amount", amountWithCurrencySend);
-                }
-                String transferType = this.determineTransferType();
-
-                if (transferType != null) {
-                    transactionNode.put("transferType", transferType);
-                }
-                break;
-
-            default:
-                break;
-        }
-        return transactionNode;
+        return isInterestRelated();
+    }
+
+    /**
+     * Checks if the transaction is kept in a savings account report.
+     *
+     * @return true for interest income and interest rate changes, false otherwise
+     */
+    public boolean isInterestRelated() {
+        return getKind() != null && getKind().isInterestRelated();
+    }
+
+    /**
+     * Checks if the transaction is a card payment to a commerciant, as listed in
+     * spendings reports.
+     *
+     * @return true if the transaction is a successful card payment, false otherwise
+     */
+    public boolean isCardSpending() {
+        return getKind() != null && getKind().isCardPayment()
+                && this.getCommerciant() != null
+                && this.getAccountNumber() != null;
     }
 
     /**
@@ -660,25 +643,10 @@ public class Transaction {
      * @return true if spending-relevant, false otherwise
      */
     public boolean isSpendingRelevant(final Account account) {
-        return "paySucessful".equalsIgnoreCase(this.getType())
-                && this.getCommerciant() != null
+        return isCardSpending()
                 && this.getAccountNumber().equalsIgnoreCase(account.getAccountNumber());
     }
 
-    /**
-     * Converts the transaction into a spending report node for JSON representation.
-     *
-     * @param objectMapper the object mapper for JSON creation
-     * @return an ObjectNode containing spending transaction details
-     */
-    public ObjectNode toSpendingsReportNode(final ObjectMapper objectMapper) {
-        ObjectNode transactionNode = objectMapper.createObjectNode();
-        transactionNode.put("timestamp", this.getTimestamp());
-        transactionNode.put("description", this.getDescription());
-        transactionNode.put("amount", this.getAmount());
-        transactionNode.put("commerciant", this.getCommerciant());
-        return transactionNode;
-    }
     /**
      * Returns a string representation of the Transaction object.
      *
@@ -688,10 +656,10 @@ public class Transaction {
     @Override
     public String toString() {
         return "Transaction{"
-                + "accountNumber='" + accountNumber + '\''
-                + ", amount=" + amount
-                + ", description='" + description + '\''
-                + ", timestamp=" + timestamp
+                + "accountNumber='" + getAccountNumber() + '\''
+                + ", amount=" + getAmount()
+                + ", description='" + getDescription() + '\''
+                + ", timestamp=" + getTimestamp()
                 + '}';
     }
 }
@@ -0,0 +1,158 @@
+package org.poo.main.structures;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The closed set of transaction kinds. Each kind carries the code it is known by in the
+ * output and in snapshots, the shapes it is written in by printTransactions and by
+ * account reports, and the reports it is relevant to, so that transactions are filtered
+ * and printed by switching on the kind rather than by comparing strings.
+ */
+public enum TransactionKind {
+    ADD_ACCOUNT("addAccount", HistoryFormat.HEADER, ReportFormat.CARD_DETAILS),
+    ADD_CARD("addCard", HistoryFormat.CARD, ReportFormat.CARD_DETAILS),
+    DELETE_CARD("deleteCard", HistoryFormat.CARD, ReportFormat.CARD_DETAILS),
+    UPDATE_ONE_TIME_CARD("updateOneTimeCard", HistoryFormat.EMPTY, ReportFormat.HEADER),
+    CHECK_CARD_STATUS("checkCardStatus", HistoryFormat.HEADER, ReportFormat.CARD_DETAILS),
+    PAY_SUCCESSFUL("paySucessful", HistoryFormat.CARD_PAYMENT, ReportFormat.PAYMENT),
+    PAY_NO_FUNDS("payNoFunds", HistoryFormat.HEADER, ReportFormat.PAYMENT),
+    PAY_FROZEN("payFrosen", HistoryFormat.HEADER, ReportFormat.PAYMENT),
+    PAY_ONE_TIME("PayOnetime", HistoryFormat.CARD, ReportFormat.PAYMENT),
+    SEND_MONEY("sendMoney", HistoryFormat.TRANSFER, ReportFormat.TRANSFER),
+    SPLIT_PAYMENT("splitPayment", HistoryFormat.SPLIT_PAYMENT, ReportFormat.PAYMENT),
+    SPLIT_PAYMENT_FAILED("splitPaymentFailed", HistoryFormat.EMPTY, ReportFormat.PAYMENT),
+    CHANGE_INTEREST_RATE("changeInterestRate", HistoryFormat.HEADER,
+            ReportFormat.CARD_DETAILS),
+    INTEREST_INCOME("interestIncome", HistoryFormat.EMPTY, ReportFormat.HEADER);
+
+    /**
+     * The fields a kind is written with by printTransactions.
+     */
+    public enum HistoryFormat {
+        /** No fields at all. */
+        EMPTY,
+        /** Timestamp and description. */
+        HEADER,
+        /** The header, the card, its holder and its account. */
+        CARD,
+        /** The header, the amount and the commerciant. */
+        CARD_PAYMENT,
+        /** The header, both IBANs, the amount with its currency and the direction. */
+        TRANSFER,
+        /** The header, the currency, the share and the involved accounts. */
+        SPLIT_PAYMENT
+    }
+
+    /**
+     * The fields a kind is written with in an account report, on top of its timestamp
+     * and description. Optional fields are only written when set.
+     */
+    public enum ReportFormat {
+        /** Nothing beyond the header. */
+        HEADER,
+        /** The card, its holder and its account. */
+        CARD_DETAILS,
+        /** The amount and the commerciant. */
+        PAYMENT,
+        /** Both IBANs, the amount with its currency and the direction. */
+        TRANSFER
+    }
+
+    private static final TransactionKind[] VALUES = values();
+    private static final Map<String, TransactionKind> BY_CODE = new HashMap<>();
+
+    static {
+        for (TransactionKind kind : VALUES) {
+            BY_CODE.put(kind.code, kind);
+        }
+    }
+
+    private final String code;
+    private final HistoryFormat historyFormat;
+    private final ReportFormat reportFormat;
+
+    TransactionKind(final String code,
+                    final HistoryFormat historyFormat,
+                    final ReportFormat reportFormat) {
+        this.code = code;
+        this.historyFormat = historyFormat;
+        this.reportFormat = reportFormat;
+    }
+
+    /**
+     * Gets the code the kind is known by.
+     *
+     * @return the code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the shape the kind is written in by printTransactions.
+     *
+     * @return the history format
+     */
+    public HistoryFormat getHistoryFormat() {
+        return historyFormat;
+    }
+
+    /**
+     * Gets the shape the kind is written in by account reports.
+     *
+     * @return the report format
+     */
+    public ReportFormat getReportFormat() {
+        return reportFormat;
+    }
+
+    /**
+     * Checks whether transactions of this kind are kept in a savings account report.
+     *
+     * @return true for interest income and interest rate changes
+     */
+    public boolean isInterestRelated() {
+        return this == INTEREST_INCOME || this == CHANGE_INTEREST_RATE;
+    }
+
+    /**
+     * Checks whether transactions of this kind are card payments to a commerciant, as
+     * listed in spendings reports.
+     *
+     * @return true for successful card payments
+     */
+    public boolean isCardPayment() {
+        return this == PAY_SUCCESSFUL;
+    }
+
+    /**
+     * Gets the kind with a given ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the kind
+     */
+    static TransactionKind ofOrdinal(final int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Gets the kind known by a code.
+     *
+     * @param code the code
+     * @return the kind
+     * @throws IllegalArgumentException if no kind has that code
+     */
+    public static TransactionKind fromCode(final String code) {
+        TransactionKind kind = BY_CODE.get(code);
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown transaction kind: " + code);
+        }
+        return kind;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
@@ -0,0 +1,246 @@
+package org.poo.main.structures;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented storage for every transaction recorded in a bank. Each transaction is a
+ * row: the ordinal of its {@link TransactionKind}, an int timestamp, a double amount and
+ * int ids for its strings, its currency and its list of involved IBANs. Strings and IBAN
+ * lists are interned, so a description or an IBAN repeated across thousands of rows is
+ * held once, and a split payment shares one immutable list among all of its participants.
+ *
+ * <p>Rows live in fixed-size pages that are never copied, so a row keeps its place once
+ * written. Appending is synchronised; reading a row needs no lock as long as its index
+ * was obtained through a happens-before edge, as is the case for rows reached through a
+ * user's history.
+ *
+ * <p>Rows are handed out as {@link Transaction} views, which hold only the store and the
+ * row index.
+ */
+public final class TransactionStore {
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int NO_KIND = -1;
+
+    private final InternTable<String> strings = new InternTable<>();
+    private final InternTable<List<String>> ibanLists = new InternTable<>();
+    private final InternTable<Currency> currencies = new InternTable<>();
+    private volatile Page[] pages = new Page[0];
+    private int size;
+
+    /**
+     * The columns of a page of rows.
+     */
+    private static final class Page {
+        private final int[] kinds = new int[PAGE_SIZE];
+        private final int[] timestamps = new int[PAGE_SIZE];
+        private final double[] amounts = new double[PAGE_SIZE];
+        private final int[] senderIBANs = new int[PAGE_SIZE];
+        private final int[] receiverIBANs = new int[PAGE_SIZE];
+        private final int[] cardNumbers = new int[PAGE_SIZE];
+        private final int[] accountNumbers = new int[PAGE_SIZE];
+        private final int[] commerciants = new int[PAGE_SIZE];
+        private final int[] emails = new int[PAGE_SIZE];
+        private final int[] descriptions = new int[PAGE_SIZE];
+        private final int[] currencies = new int[PAGE_SIZE];
+        private final int[] involvedIBANs = new int[PAGE_SIZE];
+    }
+
+    /**
+     * Appends a transaction that has not been recorded yet as a new row.
+     *
+     * @param transaction the transaction to copy
+     * @return the index of the new row
+     */
+    synchronized int append(final Transaction transaction) {
+        int row = size;
+        Page[] current = pages;
+        if ((row >>> PAGE_SHIFT) == current.length) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new Page();
+        }
+
+        Page page = current[row >>> PAGE_SHIFT];
+        int slot = row & PAGE_MASK;
+        TransactionKind kind = transaction.getKind();
+        page.kinds[slot] = kind == null ? NO_KIND : kind.ordinal();
+        page.timestamps[slot] = transaction.getTimestamp();
+        page.amounts[slot] = transaction.getAmount();
+        page.senderIBANs[slot] = strings.intern(transaction.getSenderIBAN());
+        page.receiverIBANs[slot] = strings.intern(transaction.getReceiverIBAN());
+        page.cardNumbers[slot] = strings.intern(transaction.getCardNumber());
+        page.accountNumbers[slot] = strings.intern(transaction.getAccountNumber());
+        page.commerciants[slot] = strings.intern(transaction.getCommerciant());
+        page.emails[slot] = strings.intern(transaction.getEmail());
+        page.descriptions[slot] = strings.intern(transaction.getDescription());
+        page.currencies[slot] = currencies.intern(transaction.getCurrency());
+        List<String> involved = transaction.getInvolvedIBANs();
+        page.involvedIBANs[slot] = ibanLists.intern(involved == null ? null
+                : List.copyOf(involved));
+
+        pages = current;
+        size++;
+        return row;
+    }
+
+    /**
+     * Gets a view of a row.
+     *
+     * @param row the row index
+     * @return a transaction backed by the row
+     */
+    Transaction view(final int row) {
+        return new Transaction(this, row);
+    }
+
+    /**
+     * Gets the number of rows recorded so far.
+     *
+     * @return the number of rows
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of distinct strings referenced by the rows.
+     *
+     * @return the number of distinct strings
+     */
+    public synchronized int distinctStrings() {
+        return strings.size();
+    }
+
+    /**
+     * Gets the page holding a row.
+     *
+     * @param row the row index
+     * @return the page
+     */
+    private Page page(final int row) {
+        return pages[row >>> PAGE_SHIFT];
+    }
+
+    /**
+     * Gets the kind of a row.
+     *
+     * @param row the row index
+     * @return the kind
+     */
+    TransactionKind getKind(final int row) {
+        int ordinal = page(row).kinds[row & PAGE_MASK];
+        return ordinal == NO_KIND ? null : TransactionKind.ofOrdinal(ordinal);
+    }
+
+    /**
+     * Gets the timestamp of a row.
+     *
+     * @param row the row index
+     * @return the timestamp
+     */
+    int getTimestamp(final int row) {
+        return page(row).timestamps[row & PAGE_MASK];
+    }
+
+    /**
+     * Gets the amount of a row.
+     *
+     * @param row the row index
+     * @return the amount
+     */
+    double getAmount(final int row) {
+        return page(row).amounts[row & PAGE_MASK];
+    }
+
+    /**
+     * Gets the sender IBAN of a row.
+     *
+     * @param row the row index
+     * @return the sender IBAN
+     */
+    String getSenderIBAN(final int row) {
+        return strings.get(page(row).senderIBANs[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the receiver IBAN of a row.
+     *
+     * @param row the row index
+     * @return the receiver IBAN
+     */
+    String getReceiverIBAN(final int row) {
+        return strings.get(page(row).receiverIBANs[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the card number of a row.
+     *
+     * @param row the row index
+     * @return the card number
+     */
+    String getCardNumber(final int row) {
+        return strings.get(page(row).cardNumbers[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the account number of a row.
+     *
+     * @param row the row index
+     * @return the account number
+     */
+    String getAccountNumber(final int row) {
+        return strings.get(page(row).accountNumbers[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the commerciant of a row.
+     *
+     * @param row the row index
+     * @return the commerciant
+     */
+    String getCommerciant(final int row) {
+        return strings.get(page(row).commerciants[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the email of a row.
+     *
+     * @param row the row index
+     * @return the email
+     */
+    String getEmail(final int row) {
+        return strings.get(page(row).emails[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the description of a row.
+     *
+     * @param row the row index
+     * @return the description
+     */
+    String getDescription(final int row) {
+        return strings.get(page(row).descriptions[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the currency of a row.
+     *
+     * @param row the row index
+     * @return the currency
+     */
+    Currency getCurrency(final int row) {
+        return currencies.get(page(row).currencies[row & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the involved IBANs of a row.
+     *
+     * @param row the row index
+     * @return the involved IBANs
+     */
+    List<String> getInvolvedIBANs(final int row) {
+        return ibanLists.get(page(row).involvedIBANs[row & PAGE_MASK]);
+    }
+}
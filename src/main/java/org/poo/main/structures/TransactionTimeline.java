@@ -0,0 +1,151 @@
+package org.poo.main.structures;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An append-only list of recorded transactions kept in the order they were recorded. Only
+ * the row indexes of the transactions in their {@link TransactionStore} are kept; reads
+ * hand out views of the rows. As long as transactions arrive with non-decreasing
+ * timestamps, which is the case for a command stream replayed in order, a timestamp
+ * window is extracted with two binary searches. If an out-of-order timestamp is ever
+ * appended, windows fall back to a linear scan so the result stays exactly the recorded
+ * order.
+ */
+public final class TransactionTimeline {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private TransactionStore store;
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int size;
+    private boolean ordered = true;
+
+    /**
+     * Appends a recorded transaction to the timeline.
+     *
+     * @param transaction the transaction to append
+     */
+    public void add(final Transaction transaction) {
+        if (!transaction.isRecorded()) {
+            throw new IllegalArgumentException("Only recorded transactions can be added");
+        }
+        if (store == null) {
+            store = transaction.getStore();
+        }
+        if (size > 0 && store.getTimestamp(rows[size - 1]) > transaction.getTimestamp()) {
+            ordered = false;
+        }
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        rows[size++] = transaction.getRow();
+    }
+
+    /**
+     * Gets every transaction in the timeline, in recording order.
+     *
+     * @return a read-only view of the transactions
+     */
+    public List<Transaction> asList() {
+        return new Rows(rows, 0, size);
+    }
+
+    /**
+     * Gets the number of transactions in the timeline.
+     *
+     * @return the number of transactions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the transactions whose timestamp lies within an inclusive window.
+     *
+     * @param startTimestamp the start of the window
+     * @param endTimestamp   the end of the window
+     * @return the matching transactions, in recording order
+     */
+    public List<Transaction> between(final int startTimestamp,
+                                     final int endTimestamp) {
+        if (!ordered) {
+            int[] matching = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int timestamp = store.getTimestamp(rows[i]);
+                if (timestamp >= startTimestamp && timestamp <= endTimestamp) {
+                    matching[count++] = rows[i];
+                }
+            }
+            return new Rows(matching, 0, count);
+        }
+
+        int from = firstIndexAfter(startTimestamp - 1L);
+        int to = firstIndexAfter(endTimestamp);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        return new Rows(rows, from, to);
+    }
+
+    /**
+     * Binary searches for the first transaction with a timestamp greater than a bound.
+     *
+     * @param bound the exclusive lower bound
+     * @return the index of the first such transaction, or the size if there is none
+     */
+    private int firstIndexAfter(final long bound) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (store.getTimestamp(rows[middle]) <= bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A read-only slice of row indexes, exposed as transaction views. The slice keeps the
+     * array it was taken from, whose entries below the slice end never change.
+     */
+    private final class Rows extends AbstractList<Transaction> implements RandomAccess {
+        private final int[] slice;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a slice.
+         *
+         * @param slice the row indexes
+         * @param from  the first index of the slice, inclusive
+         * @param to    the last index of the slice, exclusive
+         */
+        Rows(final int[] slice,
+             final int from,
+             final int to) {
+            this.slice = slice;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Transaction get(final int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return store.view(slice[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
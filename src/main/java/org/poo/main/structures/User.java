@@ -1,13 +1,14 @@
 package org.poo.main.structures;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.poo.fileio.CommandInput;
 import org.poo.main.CommandProcessor;
-import org.poo.utils.Utils;
+import org.poo.main.commands.CommandOutcome;
+import org.poo.main.commands.PayOnline;
+import org.poo.main.output.OutputSink;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -23,7 +24,9 @@ public class User {
     private String email;
     private List<Account> accounts;
     private List<Card> cards;
-    private List<Transaction> transactions;
+    private TransactionTimeline transactions;
+    private final BankContext context;
+    private final BankIndex index;
 
     private Map<String, String> aliasToIban = new HashMap<>();
 
@@ -33,16 +36,20 @@ public class User {
      * @param firstName the first name of the user
      * @param lastName the last name of the user
      * @param email the email of the user
+     * @param context the bank this user belongs to
      */
     public User(final String firstName,
                 final String lastName,
-                final String email) {
+                final String email,
+                final BankContext context) {
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
+        this.context = context;
+        this.index = context.getIndex();
         this.accounts = new ArrayList<>();
         this.cards = new ArrayList<>();
-        this.transactions = new ArrayList<>();
+        this.transactions = new TransactionTimeline();
     }
 
     // Getters and Setters
@@ -111,12 +118,17 @@ public class User {
     }
 
     /**
-     * Adds an account to the user's list of accounts.
+     * Adds an account to the user's list of accounts. The user's earlier transactions
+     * are offered to its report timeline, as reports cover the owner's whole history.
      *
      * @param account the account to add
      */
     public void addAccount(final Account account) {
         this.accounts.add(account);
+        index.registerAccount(account, this);
+        for (Transaction transaction : transactions.asList()) {
+            account.recordForReport(transaction);
+        }
     }
 
     /**
@@ -143,16 +155,30 @@ public class User {
      * @return the list of transactions
      */
     public List<Transaction> getTransactions() {
-        return transactions;
+        return transactions.asList();
     }
 
     /**
-     * Adds a transaction to the user's list of transactions.
+     * Adds a transaction to the user's list of transactions, recording it in the bank's
+     * transaction store first if it is still a draft. The transaction is also offered to
+     * the report timeline of each of the user's accounts, and card payments are recorded
+     * on the spending timeline of the account they were made from.
      *
      * @param transaction the transaction to add
      */
     public void addTransaction(final Transaction transaction) {
+        transaction.recordIn(context.getTransactions());
         this.transactions.add(transaction);
+
+        for (Account account : accounts) {
+            account.recordForReport(transaction);
+        }
+        if (transaction.isCardSpending()) {
+            Account account = findAccountByIBAN(transaction.getAccountNumber());
+            if (account != null) {
+                account.recordSpending(transaction);
+            }
+        }
     }
 
     /**
@@ -166,6 +192,15 @@ public class User {
         aliasToIban.put(alias, iban);
     }
 
+    /**
+     * Gets every alias of this user, mapped to its IBAN.
+     *
+     * @return an unmodifiable view of the aliases
+     */
+    public Map<String, String> getAliases() {
+        return Collections.unmodifiableMap(aliasToIban);
+    }
+
     /**
      * Gets the IBAN associated with a specific alias.
      *
@@ -176,24 +211,47 @@ public class User {
         return aliasToIban.get(alias);
     }
 
+    /**
+     * Gets the bank-wide index this user keeps up to date.
+     *
+     * @return the bank index
+     */
+    public BankIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the bank this user belongs to.
+     *
+     * @return the bank context
+     */
+    public BankContext getContext() {
+        return context;
+    }
+
 
     /**
-     * Adds a new account for the user based on the provided command.
+     * Opens a new account for the user.
      *
-     * @param command the command containing account details
+     * @param accountType the type of the account
+     * @param rate the interest rate, kept only for savings accounts
+     * @param currency the interned currency of the new account
+     * @param timestamp the timestamp of the command
      */
-    public void addAccount(final CommandInput command) {
-        String iban = Utils.generateIBAN();
-        String accountType = command.getAccountType();
+    public void addAccount(final String accountType,
+                           final double rate,
+                           final Currency currency,
+                           final int timestamp) {
+        String iban = context.newIban();
         double interestRate = 0.0;
 
         if ("savings".equals(accountType)) {
-            interestRate = command.getInterestRate();
+            interestRate = rate;
         }
-        Account account = new Account(iban, command.getCurrency(), accountType, interestRate);
+        Account account = new Account(iban, currency, accountType, interestRate);
         addAccount(account);
-        Transaction transaction = new Transaction("addAccount",
-                command.getTimestamp(), "New account created");
+        Transaction transaction = new Transaction(TransactionKind.ADD_ACCOUNT,
+                timestamp, "New account created");
         addTransaction(transaction);
     }
 
@@ -202,9 +260,10 @@ public class User {
      *
      * @param accountNumber the account number
      * @param timestamp the timestamp of the card creation
+     * @return true if the card was created, false if the user has no such account
      */
-    public void createCard(final String accountNumber,
-                           final int timestamp) {
+    public boolean createCard(final String accountNumber,
+                              final int timestamp) {
         Account targetAccount = null;
         for (Account account : getAccounts()) {
             if (account.getAccountNumber().equalsIgnoreCase(accountNumber)) {
@@ -214,62 +273,46 @@ public class User {
         }
 
         if (targetAccount == null) {
-            return;
+            return false;
         }
 
-        String cardNumber = Utils.generateCardNumber();
+        String cardNumber = context.newCardNumber();
         Card card = new Card(cardNumber, targetAccount.getAccountNumber(), false);
         targetAccount.addCard(card);
-        Transaction transaction = new Transaction("addCard", timestamp,
+        index.registerCard(card, targetAccount, this);
+        Transaction transaction = new Transaction(TransactionKind.ADD_CARD, timestamp,
                 "New card created", cardNumber, getEmail(), targetAccount.getAccountNumber());
         addTransaction(transaction);
+        return true;
     }
 
     /**
      * Creates a one-time use card for a specific account.
      *
-     * @param command the command containing account details
+     * @param accountNumber the account number
+     * @param timestamp the timestamp of the card creation
      */
-    public void createOneTimeCard(final CommandInput command) {
+    public void createOneTimeCard(final String accountNumber,
+                                  final int timestamp) {
         String accountNbr = null;
         String cardNumber = null;
 
         for (Account account : getAccounts()) {
-            if (account.getAccountNumber().equals(command.getAccount())) {
-                cardNumber = Utils.generateCardNumber();
+            if (account.getAccountNumber().equals(accountNumber)) {
+                cardNumber = context.newCardNumber();
                 accountNbr = account.getAccountNumber();
                 Card card = new Card(cardNumber, account.getAccountNumber(), true);
                 account.addCard(card);
+                index.registerCard(card, account, this);
                 break;
             }
         }
 
-        Transaction transaction = new Transaction("addCard", command.getTimestamp(),
+        Transaction transaction = new Transaction(TransactionKind.ADD_CARD, timestamp,
                 "New card created", cardNumber, getEmail(), accountNbr);
         addTransaction(transaction);
     }
 
-    /**
-     * Deletes an account based on the command details.
-     *
-     * @param command the command containing account details
-     * @return true if the account was deleted, false otherwise
-     */
-    public boolean deleteAccount(final CommandInput command) {
-        boolean deleted = getAccounts().removeIf(account -> {
-            if (!account.getAccountNumber().equals(command.getAccount())) {
-                return false;
-            }
-            if (account.getBalance() != 0) {
-                return false;
-            }
-            account.getCards().clear();
-            return true;
-        });
-
-        return deleted;
-    }
-
     /**
      * Deletes a card based on the card number.
      *
@@ -288,19 +331,15 @@ public class User {
             }
         }
 
-        for (Account account : accounts) {
-            Iterator<Card> accountCardIterator = account.getCards().iterator();
-            while (accountCardIterator.hasNext()) {
-                Card card = accountCardIterator.next();
-                if (card.getCardNumber().equals(cardNumber)) {
-                    accountCardIterator.remove();
-                    return createDeleteCardTransaction(cardNumber,
-                            account.getAccountNumber(), timestamp);
-                }
-            }
+        CardEntry entry = findCardEntry(cardNumber);
+        if (entry == null) {
+            return null;
         }
 
-        return null;
+        Account account = entry.getAccount();
+        account.getCards().remove(entry.getCard());
+        index.unregisterCard(cardNumber);
+        return createDeleteCardTransaction(cardNumber, account.getAccountNumber(), timestamp);
     }
     /**
      * Creates a transaction for deleting a card.
@@ -314,7 +353,7 @@ public class User {
                                                     final String accountNumber,
                                                     final int timestamp) {
         Transaction deleteCardTransaction = new Transaction(
-                "deleteCard",
+                TransactionKind.DELETE_CARD,
                 timestamp,
                 "The card has been destroyed"
         );
@@ -340,6 +379,7 @@ public class User {
             if (account.getBalance() != 0) {
                 return false;
             }
+            index.unregisterAccount(account);
             account.clearCards();
             return true;
         });
@@ -366,20 +406,37 @@ public class User {
     /**
      * Processes a transaction for the user.
      *
-     * @param command the transaction command input
+     * @param command the payOnline command
+     * @param currency the interned currency of the payment
      * @param responseNode the response node to record transaction details
      * @param commandProcessor the processor handling the transaction
-     * @return true if the transaction was processed successfully, false otherwise
+     * @return how the payment ended, {@link CommandOutcome#NOT_FOUND} if the user has no
+     *         such card
+     */
+    public CommandOutcome processTransaction(final PayOnline command,
+                                             final Currency currency,
+                                             final ObjectNode responseNode,
+                                             final CommandProcessor commandProcessor) {
+        CardEntry entry = findCardEntry(command.cardNumber());
+        if (entry == null) {
+            return CommandOutcome.NOT_FOUND;
+        }
+        return entry.getAccount().processCardTransaction(entry.getCard(), command, currency,
+                responseNode, this, commandProcessor);
+    }
+
+    /**
+     * Looks up a card in the bank index, keeping only cards owned by this user.
+     *
+     * @param cardNumber the card number
+     * @return the index entry of the card, or null if this user has no such card
      */
-    public boolean processTransaction(final CommandInput command,
-                                      final ObjectNode responseNode,
-                                      final CommandProcessor commandProcessor) {
-        for (Account account : this.accounts) {
-            if (account.processCardTransaction(command, responseNode, this, commandProcessor)) {
-                return true;
-            }
+    private CardEntry findCardEntry(final String cardNumber) {
+        CardEntry entry = index.findByCardNumber(cardNumber);
+        if (entry == null || entry.getOwner() != this) {
+            return null;
         }
-        return false;
+        return entry;
     }
 
     /**
@@ -389,12 +446,11 @@ public class User {
      * @return the account if found, null otherwise
      */
     public Account findAccountByIBAN(final String iban) {
-        for (Account account : accounts) {
-            if (account.getAccountNumber().equals(iban)) {
-                return account;
-            }
+        AccountEntry entry = index.findByIban(iban);
+        if (entry == null || entry.getOwner() != this) {
+            return null;
         }
-        return null;
+        return entry.getAccount();
     }
 
     /**
@@ -421,14 +477,7 @@ public class User {
      * @return the user if found, null otherwise
      */
     public User findUserByCard(final String cardNumber) {
-        for (Account account : accounts) {
-            for (Card card : account.getCards()) {
-                if (card.getCardNumber().equals(cardNumber)) {
-                    return this;
-                }
-            }
-        }
-        return null;
+        return findCardEntry(cardNumber) == null ? null : this;
     }
 
     /**
@@ -438,13 +487,8 @@ public class User {
      * @return the card if found, null otherwise
      */
     public Card findCardByNumber(final String cardNumber) {
-        for (Account account : accounts) {
-            Card card = account.findCardByNumber(cardNumber);
-            if (card != null) {
-                return card;
-            }
-        }
-        return null;
+        CardEntry entry = findCardEntry(cardNumber);
+        return entry == null ? null : entry.getCard();
     }
 
     /**
@@ -454,12 +498,11 @@ public class User {
      * @return the account associated with the card, or null if not found
      */
     public Account findAccountByCard(final Card card) {
-        for (Account account : accounts) {
-            if (account.getCards().contains(card)) {
-                return account;
-            }
+        CardEntry entry = findCardEntry(card.getCardNumber());
+        if (entry == null || entry.getCard() != card) {
+            return null;
         }
-        return null;
+        return entry.getAccount();
     }
 
     /**
@@ -475,7 +518,7 @@ public class User {
     public boolean changeAccountInterestRate(final String accountNumber,
                                              final double newInterestRate,
                                              final int timestamp,
-                                             final ArrayNode output,
+                                             final OutputSink output,
                                              final ObjectMapper objectMapper) {
         Account account = findAccountByIBAN(accountNumber);
 
@@ -498,63 +541,17 @@ public class User {
     public void addSplitPaymentTransaction(final String description,
                                            final int timestamp,
                                            final double amount,
-                                           final String currency,
+                                           final Currency currency,
                                            final List<String> involvedIBANs) {
         Transaction splitPaymentTransaction = new Transaction(
-                "splitPayment",
+                TransactionKind.SPLIT_PAYMENT,
                 timestamp,
                 description
         );
         splitPaymentTransaction.setCurrency(currency);
         splitPaymentTransaction.setAmount(amount);
         splitPaymentTransaction.setInvolvedIBANs(involvedIBANs);
-        this.transactions.add(splitPaymentTransaction);
-    }
-
-    /**
-     * Filters transactions for a report based on account and timestamps.
-     *
-     * @param account the account to filter transactions for
-     * @param startTimestamp the start timestamp of the filter range
-     * @param endTimestamp the end timestamp of the filter range
-     * @return an array node containing the filtered transactions
-     */
-    public ArrayNode filterTransactionsForReport(final Account account,
-                                                 final int startTimestamp,
-                                                 final int endTimestamp) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ArrayNode transactionsArray = objectMapper.createArrayNode();
-
-        for (Transaction transaction : this.getTransactions()) {
-            if (transaction.isWithinTimestamp(startTimestamp, endTimestamp)
-                    && transaction.isRelevantToAccountType(account)) {
-                transactionsArray.add(transaction.toReportNode(objectMapper));
-            }
-        }
-        return transactionsArray;
-    }
-
-    /**
-     * Filters spending transactions based on account and timestamps.
-     *
-     * @param account the account to filter transactions for
-     * @param startTimestamp the start timestamp of the filter range
-     * @param endTimestamp the end timestamp of the filter range
-     * @return an array node containing the filtered spending transactions
-     */
-    public ArrayNode filterSpendingsTransactions(final Account account,
-                                                 final int startTimestamp,
-                                                 final int endTimestamp) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ArrayNode transactionsArray = objectMapper.createArrayNode();
-
-        for (Transaction transaction : this.getTransactions()) {
-            if (transaction.isWithinTimestamp(startTimestamp, endTimestamp)
-                    && transaction.isSpendingRelevant(account)) {
-                transactionsArray.add(transaction.toSpendingsReportNode(objectMapper));
-            }
-        }
-        return transactionsArray;
+        addTransaction(splitPaymentTransaction);
     }
 
     /**
@@ -571,7 +568,7 @@ public class User {
                 + ", email='" + email + '\''
                 + ", accounts=" + accounts
                 + ", cards=" + cards
-                + ", transactions=" + transactions
+                + ", transactions=" + transactions.asList()
                 + '}';
     }
 }
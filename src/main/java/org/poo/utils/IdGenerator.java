@@ -0,0 +1,160 @@
+package org.poo.utils;
+
+import java.util.function.Predicate;
+
+/**
+ * Generates IBANs and card numbers from seeded random sequences. Each engine owns its
+ * own generator, so independent runs produce the same identifiers regardless of what
+ * other runs in the same JVM are doing.
+ *
+ * <p>The sequences are the ones {@link java.util.Random} produces for the same seeds,
+ * drawing one {@code nextInt(10)} per digit. The generator steps the linear congruential
+ * recurrence inline and writes digits straight into a reused buffer, so no
+ * {@code Random} or {@code StringBuilder} is involved. A generator is not thread-safe;
+ * it belongs to a single engine.
+ */
+public final class IdGenerator {
+    private static final long IBAN_SEED = 1;
+    private static final long CARD_SEED = 2;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    private static final int SHIFT = 48 - 31;
+    private static final int DIGIT_BOUND = 10;
+    private static final int COUNTRY_DIGITS = 2;
+    private static final int DIGIT_GENERATION = 16;
+    private static final String RO_STR = "RO";
+    private static final String POO_STR = "POOB";
+    private static final int IBAN_LENGTH =
+            RO_STR.length() + COUNTRY_DIGITS + POO_STR.length() + DIGIT_GENERATION;
+
+    private long ibanSeed = scramble(IBAN_SEED);
+    private long cardSeed = scramble(CARD_SEED);
+    private final char[] ibanBuffer = new char[IBAN_LENGTH];
+    private final char[] cardBuffer = new char[DIGIT_GENERATION];
+
+    /**
+     * Creates a generator positioned at the start of both sequences.
+     */
+    public IdGenerator() {
+        RO_STR.getChars(0, RO_STR.length(), ibanBuffer, 0);
+        POO_STR.getChars(0, POO_STR.length(), ibanBuffer, RO_STR.length() + COUNTRY_DIGITS);
+    }
+
+    /**
+     * Generates the next IBAN of the sequence.
+     *
+     * @return the IBAN as String
+     */
+    public String generateIBAN() {
+        int pos = RO_STR.length();
+        ibanSeed = fillDigits(ibanSeed, ibanBuffer, pos, COUNTRY_DIGITS);
+        pos += COUNTRY_DIGITS + POO_STR.length();
+        ibanSeed = fillDigits(ibanSeed, ibanBuffer, pos, DIGIT_GENERATION);
+        return new String(ibanBuffer);
+    }
+
+    /**
+     * Generates the next IBAN of the sequence that is not already in use.
+     *
+     * @param inUse tells whether an IBAN is already assigned
+     * @return the IBAN as String
+     */
+    public String generateIBAN(final Predicate<String> inUse) {
+        String iban = generateIBAN();
+        while (inUse.test(iban)) {
+            iban = generateIBAN();
+        }
+        return iban;
+    }
+
+    /**
+     * Generates the next card number of the sequence.
+     *
+     * @return the card number as String
+     */
+    public String generateCardNumber() {
+        cardSeed = fillDigits(cardSeed, cardBuffer, 0, DIGIT_GENERATION);
+        return new String(cardBuffer);
+    }
+
+    /**
+     * Generates the next card number of the sequence that is not already in use.
+     *
+     * @param inUse tells whether a card number is already assigned
+     * @return the card number as String
+     */
+    public String generateCardNumber(final Predicate<String> inUse) {
+        String cardNumber = generateCardNumber();
+        while (inUse.test(cardNumber)) {
+            cardNumber = generateCardNumber();
+        }
+        return cardNumber;
+    }
+
+    /**
+     * Gets the internal state of the IBAN sequence, for snapshots.
+     *
+     * @return the 48-bit generator state
+     */
+    public long getIbanState() {
+        return ibanSeed;
+    }
+
+    /**
+     * Gets the internal state of the card number sequence, for snapshots.
+     *
+     * @return the 48-bit generator state
+     */
+    public long getCardState() {
+        return cardSeed;
+    }
+
+    /**
+     * Moves both sequences to previously saved states.
+     *
+     * @param ibanState the state returned by {@link #getIbanState()}
+     * @param cardState the state returned by {@link #getCardState()}
+     */
+    public void restoreState(final long ibanState,
+                             final long cardState) {
+        ibanSeed = ibanState & MASK;
+        cardSeed = cardState & MASK;
+    }
+
+    /**
+     * Writes decimal digits into a buffer, drawing each one the way Random.nextInt(10)
+     * does, including its rejection of the top partial range.
+     *
+     * @param state the current generator state
+     * @param buffer the buffer receiving the digits
+     * @param from the first position to write
+     * @param count the number of digits to write
+     * @return the generator state after the last draw
+     */
+    private static long fillDigits(final long state, final char[] buffer,
+                                   final int from, final int count) {
+        long seed = state;
+        for (int i = from; i < from + count; i++) {
+            int bits;
+            int digit;
+            do {
+                seed = (seed * MULTIPLIER + ADDEND) & MASK;
+                bits = (int) (seed >>> SHIFT);
+                digit = bits % DIGIT_BOUND;
+            } while (bits - digit + (DIGIT_BOUND - 1) < 0);
+            buffer[i] = (char) ('0' + digit);
+        }
+        return seed;
+    }
+
+    /**
+     * Applies the initial scrambling Random performs on its seed.
+     *
+     * @param seed the user-supplied seed
+     * @return the internal state for that seed
+     */
+    private static long scramble(final long seed) {
+        return (seed ^ MULTIPLIER) & MASK;
+    }
+}